@@ -56,8 +56,7 @@ public class AddRegionsActivity extends AppCompatActivity {
                 textView.setText(""+count);
                 textView.setVisibility(View.VISIBLE);
 
-                voronoiView.addView(view);
-                voronoiView.refresh();
+                voronoiView.addRegion(view);
             }
         });
 
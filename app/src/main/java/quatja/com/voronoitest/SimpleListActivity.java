@@ -75,6 +75,10 @@ public class SimpleListActivity extends AppCompatActivity {
             holder.textView.setText(string);
             holder.textView.setVisibility(View.VISIBLE);
 
+            // every row keeps its own diagram, rebinding a row is a cache lookup
+            holder.voronoi.setSeed(position);
+            holder.voronoi.refresh();
+
 
 
 
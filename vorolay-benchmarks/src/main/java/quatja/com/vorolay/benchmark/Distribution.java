@@ -0,0 +1,133 @@
+package quatja.com.vorolay.benchmark;
+
+import java.util.Random;
+
+/**
+ * Site distributions used by the benchmarks. The sites are placed inside a square of
+ * {@link #side} units, which grows with the site count so the average density stays the same.
+ *
+ * Created by quatja
+ */
+public enum Distribution {
+
+    /**
+     * Uniformly random sites
+     */
+    UNIFORM {
+        @Override
+        void fill(double[] x, double[] y, double side, Random rand) {
+            for (int i = 0; i < x.length; i++) {
+                x[i] = rand.nextDouble() * side;
+                y[i] = rand.nextDouble() * side;
+            }
+        }
+    },
+
+    /**
+     * Sites grouped into gaussian clusters of about 1000 sites
+     */
+    CLUSTERED {
+        @Override
+        void fill(double[] x, double[] y, double side, Random rand) {
+            int clusters = Math.max(1, x.length / 1000);
+            double sigma = side / (8 * Math.sqrt(clusters));
+
+            double[] cx = new double[clusters];
+            double[] cy = new double[clusters];
+            for (int i = 0; i < clusters; i++) {
+                cx[i] = rand.nextDouble() * side;
+                cy[i] = rand.nextDouble() * side;
+            }
+
+            for (int i = 0; i < x.length; i++) {
+                int cluster = rand.nextInt(clusters);
+                x[i] = clamp(cx[cluster] + rand.nextGaussian() * sigma, side);
+                y[i] = clamp(cy[cluster] + rand.nextGaussian() * sigma, side);
+            }
+        }
+    },
+
+    /**
+     * Sites on a regular grid, so every diagram vertex is shared by four cocircular sites
+     */
+    GRID {
+        @Override
+        void fill(double[] x, double[] y, double side, Random rand) {
+            int columns = (int) Math.ceil(Math.sqrt(x.length));
+            double step = side / columns;
+
+            for (int i = 0; i < x.length; i++) {
+                x[i] = (i % columns + 0.5) * step;
+                y[i] = (i / columns + 0.5) * step;
+            }
+        }
+    },
+
+    /**
+     * Sites along a horizontal line with a small vertical jitter
+     */
+    NEAR_COLLINEAR {
+        @Override
+        void fill(double[] x, double[] y, double side, Random rand) {
+            for (int i = 0; i < x.length; i++) {
+                x[i] = rand.nextDouble() * side;
+                y[i] = side / 2 + rand.nextGaussian();
+            }
+        }
+    },
+
+    /**
+     * Uniformly random sites where every distinct site is repeated about 10 times
+     */
+    DUPLICATES {
+        @Override
+        void fill(double[] x, double[] y, double side, Random rand) {
+            int distinct = Math.max(1, x.length / 10);
+            for (int i = 0; i < distinct; i++) {
+                x[i] = rand.nextDouble() * side;
+                y[i] = rand.nextDouble() * side;
+            }
+            for (int i = distinct; i < x.length; i++) {
+                int source = rand.nextInt(distinct);
+                x[i] = x[source];
+                y[i] = y[source];
+            }
+        }
+    };
+
+
+    /**
+     * Average distance between neighbouring sites
+     */
+    static final double SPACING = 100;
+
+    abstract void fill(double[] x, double[] y, double side, Random rand);
+
+    /**
+     * Returns the side of the square which holds <code>count</code> sites.
+     *
+     * @param count the site count
+     * @return the square side
+     */
+    static double side(int count) {
+        return Math.ceil(Math.sqrt(count)) * SPACING;
+    }
+
+    /**
+     * Generates <code>count</code> sites with a fixed seed, so every run gets the same input.
+     *
+     * @param count the site count
+     * @param seed  the random seed
+     * @return two arrays, x and y coordinates
+     */
+    double[][] generate(int count, long seed) {
+        double[] x = new double[count];
+        double[] y = new double[count];
+        fill(x, y, side(count), new Random(seed));
+        return new double[][]{x, y};
+    }
+
+    private static double clamp(double value, double side) {
+        return Math.max(0, Math.min(side, value));
+    }
+}
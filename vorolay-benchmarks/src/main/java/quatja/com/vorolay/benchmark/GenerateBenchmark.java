@@ -0,0 +1,73 @@
+package quatja.com.vorolay.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import quatja.com.vorolay.diagram.Voronoi;
+
+/**
+ * Measures {@link Voronoi#generateVoronoi}: site sorting, the sweep and the edge clipping.
+ *
+ * Created by quatja
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int sites;
+
+    @Param({"UNIFORM", "CLUSTERED", "GRID", "NEAR_COLLINEAR", "DUPLICATES"})
+    public Distribution distribution;
+
+    @Param({"false", "true"})
+    public boolean reuseWorkspace;
+
+    @Param({"HASH", "HEAP"})
+    public String eventQueue;
+
+    @Param({"HASH", "TREE"})
+    public String beachLine;
+
+    @Param({"false", "true"})
+    public boolean parallelGeneration;
+
+    private double[] x, y;
+    private double side;
+    private Voronoi voronoi;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        double[][] points = distribution.generate(sites, 42);
+        x = points[0];
+        y = points[1];
+        side = Distribution.side(sites);
+        voronoi = new Voronoi();
+        voronoi.setReuseWorkspace(reuseWorkspace);
+        voronoi.setEventQueue("HEAP".equals(eventQueue) ? Voronoi.EVENT_QUEUE_HEAP : Voronoi.EVENT_QUEUE_HASH);
+        voronoi.setBeachLine("TREE".equals(beachLine) ? Voronoi.BEACH_LINE_TREE : Voronoi.BEACH_LINE_HASH);
+        voronoi.setParallelGeneration(parallelGeneration);
+    }
+
+    @Benchmark
+    public Voronoi generate() {
+        voronoi.generateVoronoi(x, y, 0, side, 0, side);
+        return voronoi;
+    }
+}
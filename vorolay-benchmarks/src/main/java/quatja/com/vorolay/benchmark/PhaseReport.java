@@ -0,0 +1,78 @@
+package quatja.com.vorolay.benchmark;
+
+import java.util.Locale;
+
+import quatja.com.vorolay.diagram.Voronoi;
+
+/**
+ * Prints the average time of every engine phase (sort, sweep, clip, region build)
+ * for each distribution and site count.
+ *
+ * Usage: <code>PhaseReport [sites...]</code>
+ *
+ * Created by quatja
+ */
+public class PhaseReport {
+
+    private static final int[] DEFAULT_SITES = {10, 100, 1000, 10000, 100000, 1000000};
+
+    private static final long WARMUP_NANOS = 1000000000L;
+    private static final long MEASURE_NANOS = 2000000000L;
+
+    public static void main(String[] args) {
+        int[] sites = DEFAULT_SITES;
+        if (args.length > 0) {
+            sites = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+                sites[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.println(String.format(Locale.US, "%-15s %8s %6s %10s %10s %10s %10s",
+                "distribution", "sites", "runs", "sort ms", "sweep ms", "clip ms", "regions ms"));
+
+        for (Distribution distribution : Distribution.values()) {
+            for (int count : sites) {
+                report(distribution, count);
+            }
+        }
+    }
+
+    private static void report(Distribution distribution, int count) {
+        double[][] points = distribution.generate(count, 42);
+        double side = Distribution.side(count);
+
+        Voronoi voronoi = new Voronoi();
+        Voronoi.PhaseTimes times = new Voronoi.PhaseTimes();
+        voronoi.setPhaseTimes(times);
+
+        int runs;
+        try {
+            run(voronoi, points, side, WARMUP_NANOS);
+            times.reset();
+            runs = run(voronoi, points, side, MEASURE_NANOS);
+        } catch (RuntimeException e) {
+            System.out.println(String.format(Locale.US, "%-15s %8d failed: %s", distribution, count, e));
+            return;
+        }
+
+        System.out.println(String.format(Locale.US, "%-15s %8d %6d %10.3f %10.3f %10.3f %10.3f",
+                distribution, count, runs,
+                millis(times.sort, runs), millis(times.sweep, runs), millis(times.clip, runs),
+                millis(times.regions, runs)));
+    }
+
+    private static int run(Voronoi voronoi, double[][] points, double side, long duration) {
+        long start = System.nanoTime();
+        int runs = 0;
+        do {
+            voronoi.generateVoronoi(points[0], points[1], 0, side, 0, side);
+            voronoi.getRegions();
+            runs++;
+        } while (System.nanoTime() - start < duration);
+        return runs;
+    }
+
+    private static double millis(long nanos, int runs) {
+        return nanos / 1e6 / runs;
+    }
+}
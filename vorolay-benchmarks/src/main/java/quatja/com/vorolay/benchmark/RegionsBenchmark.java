@@ -0,0 +1,70 @@
+package quatja.com.vorolay.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import quatja.com.vorolay.diagram.CompactDiagram;
+import quatja.com.vorolay.diagram.Voronoi;
+import quatja.com.vorolay.diagram.VoronoiRegion;
+
+/**
+ * Measures a full diagram build: {@link Voronoi#generateVoronoi} followed by {@link Voronoi#getRegions},
+ * which is what VoronoiView did on every layout, and the same build into a reused {@link CompactDiagram}.
+ *
+ * Created by quatja
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionsBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int sites;
+
+    @Param({"UNIFORM", "CLUSTERED", "GRID", "NEAR_COLLINEAR", "DUPLICATES"})
+    public Distribution distribution;
+
+    private double[] x, y;
+    private double side;
+    private Voronoi voronoi;
+    private CompactDiagram compact;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        double[][] points = distribution.generate(sites, 42);
+        x = points[0];
+        y = points[1];
+        side = Distribution.side(sites);
+        voronoi = new Voronoi();
+        compact = new CompactDiagram();
+    }
+
+    @Benchmark
+    public List<VoronoiRegion> generateAndGetRegions() {
+        voronoi.generateVoronoi(x, y, 0, side, 0, side);
+        return voronoi.getRegions();
+    }
+
+    @Benchmark
+    public CompactDiagram generateAndGetCompactRegions() {
+        voronoi.generateVoronoi(x, y, 0, side, 0, side);
+        voronoi.getRegions(compact);
+        return compact;
+    }
+}
@@ -34,6 +34,8 @@ import quatja.com.vorolay.diagram.VoronoiRegion.VoronoiPoint;
  */
 public final class GrahamScan {
 
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
     /**
      * An enum denoting a directional-turn between 3 points (vectors).
      */
@@ -151,6 +153,275 @@ public final class GrahamScan {
         return new ArrayList<>(stack);
     }
 
+    /**
+     * Writes the convex hull of the packed points <code>x0, y0, x1, y1, ...</code>
+     * into <code>hull</code>, packed the same way, using Andrew's monotone chain.
+     * Nothing is allocated. The hull goes counter-clockwise (with the y axis
+     * pointing up) from the point with the lowest x, and the first point is
+     * not repeated at the end. Points on the hull sides are left out.
+     *
+     * Degenerate input doesn't throw: coincident points give a single point,
+     * collinear points give the two end points and no points give an empty
+     * hull.
+     *
+     * @param points the packed points. They are sorted by x, then by y, in
+     *               place and the duplicates are removed.
+     * @param count  the count of the points.
+     * @param hull   receives the hull points, needs room for
+     *               <code>2 * count + 2</code> values.
+     * @return       the count of the hull points.
+     * @throws IllegalArgumentException if <code>hull</code> is too small.
+     */
+    public static int getConvexHull(double[] points, int count, double[] hull) throws IllegalArgumentException {
+
+        if(hull.length < 2 * count + 2) {
+            throw new IllegalArgumentException("the hull needs room for 2 * count + 2 values");
+        }
+
+        sort(points, 0, count);
+        count = removeDuplicates(points, count);
+
+        if(count < 3) {
+            System.arraycopy(points, 0, hull, 0, 2 * count);
+            return count;
+        }
+
+        int k = 0;
+
+        // lower chain, left to right
+        for(int i = 0; i < count; i++) {
+            double x = points[2 * i], y = points[2 * i + 1];
+            while(k >= 2 && cross(hull[2 * k - 4], hull[2 * k - 3], hull[2 * k - 2], hull[2 * k - 1], x, y) <= 0) {
+                k--;
+            }
+            hull[2 * k] = x;
+            hull[2 * k + 1] = y;
+            k++;
+        }
+
+        // upper chain, right to left, on top of the lower one
+        for(int i = count - 2, lower = k + 1; i >= 0; i--) {
+            double x = points[2 * i], y = points[2 * i + 1];
+            while(k >= lower && cross(hull[2 * k - 4], hull[2 * k - 3], hull[2 * k - 2], hull[2 * k - 1], x, y) <= 0) {
+                k--;
+            }
+            hull[2 * k] = x;
+            hull[2 * k + 1] = y;
+            k++;
+        }
+
+        // the last point is the first one again
+        return k - 1;
+    }
+
+    /**
+     * Writes the convex hull of the packed points into <code>hull</code>, see
+     * {@link #getConvexHull(double[], int, double[])}.
+     *
+     * @param points the packed points, sorted and deduplicated in place.
+     * @param count  the count of the points.
+     * @param hull   receives the hull points, needs room for
+     *               <code>2 * count + 2</code> values.
+     * @return       the count of the hull points.
+     * @throws IllegalArgumentException if <code>hull</code> is too small.
+     */
+    public static int getConvexHull(float[] points, int count, float[] hull) throws IllegalArgumentException {
+
+        if(hull.length < 2 * count + 2) {
+            throw new IllegalArgumentException("the hull needs room for 2 * count + 2 values");
+        }
+
+        sort(points, 0, count);
+        count = removeDuplicates(points, count);
+
+        if(count < 3) {
+            System.arraycopy(points, 0, hull, 0, 2 * count);
+            return count;
+        }
+
+        int k = 0;
+
+        for(int i = 0; i < count; i++) {
+            float x = points[2 * i], y = points[2 * i + 1];
+            while(k >= 2 && cross(hull[2 * k - 4], hull[2 * k - 3], hull[2 * k - 2], hull[2 * k - 1], x, y) <= 0) {
+                k--;
+            }
+            hull[2 * k] = x;
+            hull[2 * k + 1] = y;
+            k++;
+        }
+
+        for(int i = count - 2, lower = k + 1; i >= 0; i--) {
+            float x = points[2 * i], y = points[2 * i + 1];
+            while(k >= lower && cross(hull[2 * k - 4], hull[2 * k - 3], hull[2 * k - 2], hull[2 * k - 1], x, y) <= 0) {
+                k--;
+            }
+            hull[2 * k] = x;
+            hull[2 * k + 1] = y;
+            k++;
+        }
+
+        return k - 1;
+    }
+
+    /**
+     * Returns the cross product of <code>b - a</code> and <code>c - a</code>,
+     * positive for a counter-clockwise turn. Float coordinates are promoted,
+     * so the product doesn't lose their precision.
+     */
+    private static double cross(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    /**
+     * Sorts the packed points <code>from .. to</code> by x, then by y.
+     * Quicksort on the middle point, the smaller part is sorted recursively
+     * so the recursion stays shallow.
+     */
+    private static void sort(double[] points, int from, int to) {
+
+        while(to - from > INSERTION_SORT_THRESHOLD) {
+
+            int middle = (from + to) >>> 1;
+            double px = points[2 * middle], py = points[2 * middle + 1];
+            int i = from, j = to - 1;
+
+            while(i <= j) {
+                while(compare(points[2 * i], points[2 * i + 1], px, py) < 0) {
+                    i++;
+                }
+                while(compare(points[2 * j], points[2 * j + 1], px, py) > 0) {
+                    j--;
+                }
+                if(i <= j) {
+                    swap(points, i++, j--);
+                }
+            }
+
+            if(j + 1 - from < to - i) {
+                sort(points, from, j + 1);
+                from = i;
+            } else {
+                sort(points, i, to);
+                to = j + 1;
+            }
+        }
+
+        for(int i = from + 1; i < to; i++) {
+            double x = points[2 * i], y = points[2 * i + 1];
+            int j = i - 1;
+            while(j >= from && compare(points[2 * j], points[2 * j + 1], x, y) > 0) {
+                points[2 * j + 2] = points[2 * j];
+                points[2 * j + 3] = points[2 * j + 1];
+                j--;
+            }
+            points[2 * j + 2] = x;
+            points[2 * j + 3] = y;
+        }
+    }
+
+    private static void sort(float[] points, int from, int to) {
+
+        while(to - from > INSERTION_SORT_THRESHOLD) {
+
+            int middle = (from + to) >>> 1;
+            float px = points[2 * middle], py = points[2 * middle + 1];
+            int i = from, j = to - 1;
+
+            while(i <= j) {
+                while(compare(points[2 * i], points[2 * i + 1], px, py) < 0) {
+                    i++;
+                }
+                while(compare(points[2 * j], points[2 * j + 1], px, py) > 0) {
+                    j--;
+                }
+                if(i <= j) {
+                    swap(points, i++, j--);
+                }
+            }
+
+            if(j + 1 - from < to - i) {
+                sort(points, from, j + 1);
+                from = i;
+            } else {
+                sort(points, i, to);
+                to = j + 1;
+            }
+        }
+
+        for(int i = from + 1; i < to; i++) {
+            float x = points[2 * i], y = points[2 * i + 1];
+            int j = i - 1;
+            while(j >= from && compare(points[2 * j], points[2 * j + 1], x, y) > 0) {
+                points[2 * j + 2] = points[2 * j];
+                points[2 * j + 3] = points[2 * j + 1];
+                j--;
+            }
+            points[2 * j + 2] = x;
+            points[2 * j + 3] = y;
+        }
+    }
+
+    private static int compare(double ax, double ay, double bx, double by) {
+        if(ax != bx) {
+            return ax < bx ? -1 : 1;
+        }
+        if(ay != by) {
+            return ay < by ? -1 : 1;
+        }
+        return 0;
+    }
+
+    private static void swap(double[] points, int a, int b) {
+        double x = points[2 * a], y = points[2 * a + 1];
+        points[2 * a] = points[2 * b];
+        points[2 * a + 1] = points[2 * b + 1];
+        points[2 * b] = x;
+        points[2 * b + 1] = y;
+    }
+
+    private static void swap(float[] points, int a, int b) {
+        float x = points[2 * a], y = points[2 * a + 1];
+        points[2 * a] = points[2 * b];
+        points[2 * a + 1] = points[2 * b + 1];
+        points[2 * b] = x;
+        points[2 * b + 1] = y;
+    }
+
+    /**
+     * Removes the repeated points from the sorted packed points and returns
+     * the count of the remaining ones.
+     */
+    private static int removeDuplicates(double[] points, int count) {
+
+        int n = Math.min(count, 1);
+
+        for(int i = 1; i < count; i++) {
+            if(points[2 * i] != points[2 * n - 2] || points[2 * i + 1] != points[2 * n - 1]) {
+                points[2 * n] = points[2 * i];
+                points[2 * n + 1] = points[2 * i + 1];
+                n++;
+            }
+        }
+
+        return n;
+    }
+
+    private static int removeDuplicates(float[] points, int count) {
+
+        int n = Math.min(count, 1);
+
+        for(int i = 1; i < count; i++) {
+            if(points[2 * i] != points[2 * n - 2] || points[2 * i + 1] != points[2 * n - 1]) {
+                points[2 * n] = points[2 * i];
+                points[2 * n + 1] = points[2 * i + 1];
+                n++;
+            }
+        }
+
+        return n;
+    }
+
     /**
      * Returns the points with the lowest y coordinate. In case more than 1 such
      * point exists, the one with the lowest x coordinate is returned.
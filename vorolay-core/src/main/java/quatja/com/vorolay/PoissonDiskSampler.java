@@ -0,0 +1,204 @@
+package quatja.com.vorolay;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Poisson-disk sampling (Bridson): random points no closer to each other than a given distance.
+ *
+ * The area is filled from a random seed point. Every active point tries a bounded number of
+ * candidates around itself and is retired when they all fail, so the fill stops by itself when
+ * the area is saturated. A background grid of cells smaller than the distance holds at most one
+ * point per cell, so checking a candidate only looks at the cells around it. The spacing is picked
+ * so the fill gives a few more points than requested, and a random subset of them is returned.
+ * With a boundary polygon the points are only placed inside of it.
+ *
+ * Created by quatja
+ */
+public class PoissonDiskSampler {
+
+    private static final int ATTEMPTS = 30;
+    private static final int MAX_FILLS = 8;
+
+    private final double width, height;
+    private final double minDistance;
+    private final Random rand;
+    private double[] boundaryX, boundaryY;
+    private double area;
+
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int count;
+    private int[] active = new int[64];
+    private int[] grid;
+    private int columns, rows;
+    private double cellSize;
+
+
+    /**
+     * @param width       width of the area, the points are inside [0, width]
+     * @param height      height of the area, the points are inside [0, height]
+     * @param minDistance the minimum distance between two points
+     * @param rand        the random source
+     */
+    public PoissonDiskSampler(double width, double height, double minDistance, Random rand) {
+        this.width = width;
+        this.height = height;
+        this.minDistance = minDistance;
+        this.rand = rand;
+        this.area = width * height;
+    }
+
+    /**
+     * Sets a convex polygon the points are placed in, on top of the area
+     *
+     * @param xValues X of the polygon vertices in any winding order, or null for the whole area
+     * @param yValues Y of the polygon vertices
+     */
+    public void setBoundary(double[] xValues, double[] yValues) {
+        boundaryX = xValues;
+        boundaryY = yValues;
+        area = width * height;
+        if (xValues == null)
+            return;
+
+        double doubled = 0;
+        for (int i = 0, j = xValues.length - 1; i < xValues.length; j = i++) {
+            doubled += xValues[j] * yValues[i] - xValues[i] * yValues[j];
+        }
+        area = Math.min(area, Math.abs(doubled) / 2);
+    }
+
+    /**
+     * Returns true if the point is inside the boundary polygon, or there is none
+     */
+    public boolean isInside(double x, double y) {
+        if (boundaryX == null)
+            return true;
+
+        // on the same side of every edge
+        boolean negative = false, positive = false;
+        for (int i = 0, j = boundaryX.length - 1; i < boundaryX.length; j = i++) {
+            double cross = (boundaryX[i] - boundaryX[j]) * (y - boundaryY[j])
+                    - (boundaryY[i] - boundaryY[j]) * (x - boundaryX[j]);
+            negative |= cross < 0;
+            positive |= cross > 0;
+        }
+        return !(negative && positive);
+    }
+
+    /**
+     * Generates up to <code>n</code> points. Fewer are generated when <code>n</code> points at the
+     * minimum distance don't fit into the area.
+     *
+     * @param x receives the X of the points
+     * @param y receives the Y of the points
+     * @param n the count of points
+     * @return the count of generated points
+     */
+    public int sample(double[] x, double[] y, int n) {
+        if (n <= 0)
+            return 0;
+
+        // a fill has about 0.7 / r^2 points per unit of area
+        double radius = Math.max(minDistance, Math.sqrt(0.6 * area / n));
+        fill(radius);
+        for (int i = 1; i < MAX_FILLS && count < n && radius > minDistance; i++) {
+            radius = Math.max(minDistance, radius * 0.8);
+            fill(radius);
+        }
+
+        // a random subset keeps the spacing
+        int result = Math.min(n, count);
+        for (int i = 0; i < result; i++) {
+            int j = i + rand.nextInt(count - i);
+            double tx = xs[i], ty = ys[i];
+            xs[i] = xs[j];
+            ys[i] = ys[j];
+            xs[j] = tx;
+            ys[j] = ty;
+
+            x[i] = xs[i];
+            y[i] = ys[i];
+        }
+        return result;
+    }
+
+    private void fill(double radius) {
+        cellSize = radius / Math.sqrt(2);
+        columns = (int) Math.ceil(width / cellSize) + 1;
+        rows = (int) Math.ceil(height / cellSize) + 1;
+        if (grid == null || grid.length < columns * rows)
+            grid = new int[columns * rows];
+        Arrays.fill(grid, 0, columns * rows, -1);
+        count = 0;
+
+        // the seed, a polygon which hardly overlaps the area may get none
+        int activeCount = 0;
+        for (int attempt = 0; attempt < ATTEMPTS * ATTEMPTS && activeCount == 0; attempt++) {
+            double x = rand.nextDouble() * width, y = rand.nextDouble() * height;
+            if (isInside(x, y))
+                active[activeCount++] = add(x, y);
+        }
+
+        double radius2 = radius * radius;
+        while (activeCount > 0) {
+            int slot = rand.nextInt(activeCount);
+            int point = active[slot];
+
+            boolean found = false;
+            for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+                // uniform in the ring between radius and 2 * radius
+                double angle = rand.nextDouble() * 2 * Math.PI;
+                double distance = radius * Math.sqrt(1 + 3 * rand.nextDouble());
+                double cx = xs[point] + distance * Math.cos(angle);
+                double cy = ys[point] + distance * Math.sin(angle);
+
+                if (cx < 0 || cx > width || cy < 0 || cy > height || !isFree(cx, cy, radius2) || !isInside(cx, cy))
+                    continue;
+
+                if (activeCount == active.length)
+                    active = Arrays.copyOf(active, activeCount * 2);
+                active[activeCount++] = add(cx, cy);
+                found = true;
+                break;
+            }
+
+            if (!found)
+                active[slot] = active[--activeCount];
+        }
+    }
+
+    private int add(double x, double y) {
+        if (count == xs.length) {
+            xs = Arrays.copyOf(xs, count * 2);
+            ys = Arrays.copyOf(ys, count * 2);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        grid[(int) (y / cellSize) * columns + (int) (x / cellSize)] = count;
+        return count++;
+    }
+
+    private boolean isFree(double x, double y, double radius2) {
+        int column = (int) (x / cellSize);
+        int row = (int) (y / cellSize);
+
+        // a point closer than the radius is at most two cells away
+        int fromColumn = Math.max(0, column - 2), toColumn = Math.min(columns - 1, column + 2);
+        int fromRow = Math.max(0, row - 2), toRow = Math.min(rows - 1, row + 2);
+        for (int r = fromRow; r <= toRow; r++) {
+            for (int c = fromColumn; c <= toColumn; c++) {
+                int other = grid[r * columns + c];
+                if (other < 0)
+                    continue;
+
+                double dx = xs[other] - x;
+                double dy = ys[other] - y;
+                if (dx * dx + dy * dy < radius2)
+                    return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,605 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.Arrays;
+
+/**
+ * Region polygons of a diagram packed into a few flat arrays.
+ *
+ * The vertices of all the regions are stored in one float array, x and y interleaved, and an
+ * offsets array tells where every region starts. The bounds, the centres of the bounding
+ * rectangles and the sites are kept in parallel arrays. A diagram of n regions costs a handful of
+ * arrays instead of n {@link VoronoiRegion} objects with their point lists, and it is refilled in
+ * place by {@link Voronoi#getRegions(CompactDiagram)} without allocating once it is big enough.
+ *
+ * {@link #getRegion} returns a {@link RegionView}, a light object which reads the arrays of the
+ * diagram. Polygons are not closed, the last vertex is followed by the first one. A region outside
+ * the boundary has no vertices and is centered at its site.
+ *
+ * Created by quatja
+ */
+public class CompactDiagram {
+
+    // heights tried for the sides of an inscribed rectangle, then the heights of the refinements
+    private static final int INSCRIBED_STEPS = 24;
+    private static final int INSCRIBED_REFINE_STEPS = 8;
+    private static final int INSCRIBED_REFINEMENTS = 3;
+
+    // x, y of the vertices of all the regions
+    float[] points = new float[64];
+    // first vertex of each region, regionCount + 1 entries, the first one is always 0
+    int[] offsets = new int[17];
+    // left, top, right, bottom of each region
+    float[] bounds = new float[64];
+    // x, y of the centre of the bounding rectangle of each region
+    float[] centers = new float[32];
+    // x, y of the site of each region
+    double[] sites = new double[32];
+    int regionCount;
+
+    // x0, y0, x1, y1 of every edge once, built on demand, the count is -1 when they are out of date
+    private float[] edges;
+    private int edgeCount = -1;
+    // the vertex following each vertex in its region, -1 for a repeated edge, and the edge lookup
+    private int[] nextPoints;
+    private int[] edgeTable;
+
+
+    public CompactDiagram() {
+    }
+
+
+    /**
+     * Return the count of the regions
+     *
+     * @return region count
+     */
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    /**
+     * Returns a view of a region. It reads the arrays of this diagram, so it shows the later
+     * changes of the diagram. It keeps its index, so it shows the next region after a region
+     * before it is removed.
+     *
+     * @param region index of the region
+     * @return the region view
+     */
+    public RegionView getRegion(int region) {
+        checkIndex(region);
+        return new RegionView(this, region);
+    }
+
+    /**
+     * Returns the vertices of all the regions, x and y interleaved. The vertices of a region are
+     * from {@link #getPointOffset} to the offset of the next region.
+     *
+     * @return the packed vertices, shared with the diagram
+     */
+    public float[] getPoints() {
+        return points;
+    }
+
+    /**
+     * Returns the index of the first vertex of a region in {@link #getPoints}, counted in vertices
+     *
+     * @param region index of the region, the region count gives the end of the last region
+     * @return vertex index
+     */
+    public int getPointOffset(int region) {
+        if (region < 0 || region > regionCount)
+            throw new IndexOutOfBoundsException("Region " + region + ", count " + regionCount);
+        return offsets[region];
+    }
+
+    public int getPointCount(int region) {
+        checkIndex(region);
+        return offsets[region + 1] - offsets[region];
+    }
+
+    public float getPointX(int region, int point) {
+        return points[2 * (offsets[region] + point)];
+    }
+
+    public float getPointY(int region, int point) {
+        return points[2 * (offsets[region] + point) + 1];
+    }
+
+    public double getSiteX(int region) {
+        checkIndex(region);
+        return sites[2 * region];
+    }
+
+    public double getSiteY(int region) {
+        checkIndex(region);
+        return sites[2 * region + 1];
+    }
+
+    public float getLeft(int region) {
+        checkIndex(region);
+        return bounds[4 * region];
+    }
+
+    public float getTop(int region) {
+        checkIndex(region);
+        return bounds[4 * region + 1];
+    }
+
+    public float getRight(int region) {
+        checkIndex(region);
+        return bounds[4 * region + 2];
+    }
+
+    public float getBottom(int region) {
+        checkIndex(region);
+        return bounds[4 * region + 3];
+    }
+
+    public float getWidth(int region) {
+        return getRight(region) - getLeft(region);
+    }
+
+    public float getHeight(int region) {
+        return getBottom(region) - getTop(region);
+    }
+
+    /**
+     * Returns the X of the centre of the bounding rectangle of a region
+     *
+     * @param region index of the region
+     * @return centre X
+     */
+    public float getCenterX(int region) {
+        checkIndex(region);
+        return centers[2 * region];
+    }
+
+    public float getCenterY(int region) {
+        checkIndex(region);
+        return centers[2 * region + 1];
+    }
+
+    /**
+     * Is the point inside the region polygon
+     *
+     * @param region index of the region
+     * @param x      X of the point
+     * @param y      Y of the point
+     * @return True if the point is inside, false otherwise
+     */
+    public boolean contains(int region, float x, float y) {
+        checkIndex(region);
+        int b = 4 * region;
+        if (x < bounds[b] || x > bounds[b + 2] || y < bounds[b + 1] || y > bounds[b + 3])
+            return false;
+
+        int from = 2 * offsets[region], to = 2 * offsets[region + 1];
+        boolean result = false;
+        for (int i = from, j = to - 2; i < to; j = i, i += 2) {
+            float xi = points[i], yi = points[i + 1];
+            float xj = points[j], yj = points[j + 1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi)
+                result = !result;
+        }
+        return result;
+    }
+
+    /**
+     * Finds a large axis-aligned rectangle inside a region. A region is convex, so a rectangle is
+     * inside it if its top and bottom sides are; the rectangle is the widest one between the
+     * two heights, and the best pair of heights is searched on a grid over the region, then on
+     * finer grids around the best pair. It is within a small fraction of the largest one.
+     *
+     * @param region index of the region
+     * @param rect   receives left, top, right, bottom
+     * @return True if a rectangle was found, false if the region has no inside
+     */
+    public boolean getInscribedRect(int region, float[] rect) {
+        checkIndex(region);
+        int from = offsets[region], to = offsets[region + 1];
+        double minY = bounds[4 * region + 1], maxY = bounds[4 * region + 3];
+        if (to - from < 3 || maxY <= minY)
+            return false;
+
+        double[] topSpans = new double[2 * (INSCRIBED_STEPS + 1)];
+        double[] bottomSpans = new double[2 * (INSCRIBED_STEPS + 1)];
+        double topFrom = minY, topTo = maxY, bottomFrom = minY, bottomTo = maxY;
+        double bestArea = 0, bestTop = 0, bestBottom = 0, bestLeft = 0, bestRight = 0;
+        int steps = INSCRIBED_STEPS;
+
+        for (int pass = 0; pass <= INSCRIBED_REFINEMENTS; pass++) {
+            double topStep = (topTo - topFrom) / steps, bottomStep = (bottomTo - bottomFrom) / steps;
+            for (int i = 0; i <= steps; i++) {
+                span(from, to, topFrom + i * topStep, topSpans, i);
+                span(from, to, bottomFrom + i * bottomStep, bottomSpans, i);
+            }
+
+            for (int i = 0; i <= steps; i++) {
+                double top = topFrom + i * topStep;
+                for (int j = 0; j <= steps; j++) {
+                    double height = bottomFrom + j * bottomStep - top;
+                    if (height <= 0)
+                        continue;
+                    double left = Math.max(topSpans[2 * i], bottomSpans[2 * j]);
+                    double right = Math.min(topSpans[2 * i + 1], bottomSpans[2 * j + 1]);
+                    double area = (right - left) * height;
+                    if (area > bestArea) {
+                        bestArea = area;
+                        bestTop = top;
+                        bestBottom = top + height;
+                        bestLeft = left;
+                        bestRight = right;
+                    }
+                }
+            }
+            if (bestArea == 0)
+                return false;
+
+            // one step of the last grid around the best heights
+            topFrom = Math.max(minY, bestTop - topStep);
+            topTo = Math.min(maxY, bestTop + topStep);
+            bottomFrom = Math.max(minY, bestBottom - bottomStep);
+            bottomTo = Math.min(maxY, bestBottom + bottomStep);
+            steps = INSCRIBED_REFINE_STEPS;
+        }
+
+        rect[0] = (float) bestLeft;
+        rect[1] = (float) bestTop;
+        rect[2] = (float) bestRight;
+        rect[3] = (float) bestBottom;
+        return true;
+    }
+
+    /*
+     * Writes the left and the right end of the cut of the polygon at height y, the left end is
+     * bigger than the right one if the polygon doesn't reach the height
+     */
+    private void span(int from, int to, double y, double[] spans, int index) {
+        double left = Double.MAX_VALUE, right = -Double.MAX_VALUE;
+        for (int i = from, j = to - 1; i < to; j = i++) {
+            double yi = points[2 * i + 1], yj = points[2 * j + 1];
+            if ((yi < y && yj < y) || (yi > y && yj > y))
+                continue;
+            double xi = points[2 * i], xj = points[2 * j];
+            if (yi == yj) {
+                left = Math.min(left, Math.min(xi, xj));
+                right = Math.max(right, Math.max(xi, xj));
+            } else {
+                double x = xi + (xj - xi) * (y - yi) / (yj - yi);
+                left = Math.min(left, x);
+                right = Math.max(right, x);
+            }
+        }
+        spans[2 * index] = left;
+        spans[2 * index + 1] = right;
+    }
+
+    /**
+     * Returns the first region which contains the point
+     *
+     * @param x X of the point
+     * @param y Y of the point
+     * @return index of the region or -1 if no region contains the point
+     */
+    public int findRegion(float x, float y) {
+        for (int i = 0; i < regionCount; i++) {
+            if (contains(i, x, y))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns every edge of the diagram once, x0, y0, x1, y1 per edge. An edge between two
+     * regions is listed once, not once for each of them; the edges on the boundary are listed
+     * too. Neighbouring regions have exactly the same coordinates of their common vertices, so
+     * the edges are matched by them. They are found on the first call after a change of the
+     * diagram.
+     *
+     * @return the edges, shared with the diagram, the first {@link #getEdgeCount} of them are valid
+     */
+    public float[] getEdges() {
+        if (edgeCount < 0)
+            buildEdges();
+        return edges;
+    }
+
+    /**
+     * Return the count of the edges of {@link #getEdges}
+     *
+     * @return edge count
+     */
+    public int getEdgeCount() {
+        if (edgeCount < 0)
+            buildEdges();
+        return edgeCount;
+    }
+
+    /**
+     * Removes a region. The indices of the following regions go down by one.
+     *
+     * @param region index of the region
+     */
+    public void removeRegion(int region) {
+        checkIndex(region);
+
+        int from = offsets[region], to = offsets[region + 1];
+        System.arraycopy(points, 2 * to, points, 2 * from, 2 * (offsets[regionCount] - to));
+        for (int i = region + 1; i <= regionCount; i++) {
+            offsets[i - 1] = offsets[i] - (to - from);
+        }
+
+        System.arraycopy(bounds, 4 * region + 4, bounds, 4 * region, 4 * (regionCount - region - 1));
+        System.arraycopy(centers, 2 * region + 2, centers, 2 * region, 2 * (regionCount - region - 1));
+        System.arraycopy(sites, 2 * region + 2, sites, 2 * region, 2 * (regionCount - region - 1));
+        regionCount--;
+        edgeCount = -1;
+    }
+
+
+    /*
+     * Sets the region count. The offsets have to be filled in before the polygons are written.
+     */
+    void setRegionCount(int count) {
+        if (offsets.length < count + 1) {
+            int capacity = Math.max(count + 1, 2 * offsets.length);
+            offsets = Arrays.copyOf(offsets, capacity);
+            bounds = Arrays.copyOf(bounds, 4 * capacity);
+            centers = Arrays.copyOf(centers, 2 * capacity);
+            sites = Arrays.copyOf(sites, 2 * capacity);
+        }
+        regionCount = count;
+        edgeCount = -1;
+    }
+
+    /*
+     * Copies the regions of the other diagram. Arrays which are too small are replaced by arrays
+     * of the exact size.
+     */
+    void set(CompactDiagram other) {
+        int count = other.regionCount;
+        int pointCount = other.offsets[count];
+        if (offsets.length < count + 1) {
+            offsets = new int[count + 1];
+            bounds = new float[4 * count];
+            centers = new float[2 * count];
+            sites = new double[2 * count];
+        }
+        if (points.length < 2 * pointCount)
+            points = new float[2 * pointCount];
+
+        System.arraycopy(other.points, 0, points, 0, 2 * pointCount);
+        System.arraycopy(other.offsets, 0, offsets, 0, count + 1);
+        System.arraycopy(other.bounds, 0, bounds, 0, 4 * count);
+        System.arraycopy(other.centers, 0, centers, 0, 2 * count);
+        System.arraycopy(other.sites, 0, sites, 0, 2 * count);
+        regionCount = count;
+        edgeCount = -1;
+    }
+
+    /*
+     * Bytes of the arrays, with their headers
+     */
+    long byteSize() {
+        return 5 * 16 + 4L * (points.length + offsets.length + bounds.length + centers.length) + 8L * sites.length;
+    }
+
+    void ensurePointCapacity(int count) {
+        if (points.length < 2 * count)
+            points = Arrays.copyOf(points, Math.max(2 * count, 2 * points.length));
+    }
+
+    /*
+     * Writes a region polygon at its offset, the room for it is already there
+     */
+    void writeRegion(int region, double siteX, double siteY, double[] xs, double[] ys, int count) {
+        sites[2 * region] = siteX;
+        sites[2 * region + 1] = siteY;
+
+        int b = 4 * region;
+        if (count == 0) {
+            bounds[b] = bounds[b + 2] = (float) siteX;
+            bounds[b + 1] = bounds[b + 3] = (float) siteY;
+            centers[2 * region] = (float) siteX;
+            centers[2 * region + 1] = (float) siteY;
+            return;
+        }
+
+        double minX = xs[0], maxX = xs[0], minY = ys[0], maxY = ys[0];
+        int offset = 2 * offsets[region];
+        for (int i = 0; i < count; i++) {
+            points[offset + 2 * i] = (float) xs[i];
+            points[offset + 2 * i + 1] = (float) ys[i];
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+
+        bounds[b] = (float) minX;
+        bounds[b + 1] = (float) minY;
+        bounds[b + 2] = (float) maxX;
+        bounds[b + 3] = (float) maxY;
+        centers[2 * region] = (float) ((minX + maxX) / 2);
+        centers[2 * region + 1] = (float) ((minY + maxY) / 2);
+    }
+
+    /*
+     * Replaces a region polygon, or appends a region when the index is the region count. The
+     * vertices of the following regions are moved if the vertex count changes.
+     */
+    void setRegion(int region, double siteX, double siteY, double[] xs, double[] ys, int count) {
+        if (region < 0 || region > regionCount)
+            throw new IndexOutOfBoundsException("Region " + region + ", count " + regionCount);
+        if (region == regionCount) {
+            setRegionCount(regionCount + 1);
+            offsets[regionCount] = offsets[region];
+        }
+
+        int shift = count - (offsets[region + 1] - offsets[region]);
+        if (shift != 0) {
+            int end = offsets[regionCount];
+            ensurePointCapacity(end + shift);
+            int next = offsets[region + 1];
+            System.arraycopy(points, 2 * next, points, 2 * (next + shift), 2 * (end - next));
+            for (int i = region + 1; i <= regionCount; i++) {
+                offsets[i] += shift;
+            }
+        }
+        writeRegion(region, siteX, siteY, xs, ys, count);
+        edgeCount = -1;
+    }
+
+    /*
+     * Puts every directed edge of the regions into a hash table, then keeps an edge if its
+     * reverse isn't there, or if it is the one of the pair which goes to the right
+     */
+    private void buildEdges() {
+        int pointCount = offsets[regionCount];
+        if (nextPoints == null || nextPoints.length < pointCount)
+            nextPoints = new int[pointCount];
+        if (edges == null || edges.length < 4 * pointCount)
+            edges = new float[4 * pointCount];
+        int tableSize = Integer.highestOneBit(Math.max(16, 2 * pointCount)) << 1;
+        if (edgeTable == null || edgeTable.length < tableSize)
+            edgeTable = new int[tableSize];
+        Arrays.fill(edgeTable, 0, tableSize, -1);
+        int mask = tableSize - 1;
+
+        for (int region = 0; region < regionCount; region++) {
+            int from = offsets[region], to = offsets[region + 1];
+            for (int i = from; i < to; i++) {
+                nextPoints[i] = i + 1 < to ? i + 1 : from;
+            }
+        }
+
+        // coincident sites have the same region, its edges come twice
+        for (int i = 0; i < pointCount; i++) {
+            int j = nextPoints[i];
+            float ax = points[2 * i], ay = points[2 * i + 1];
+            float bx = points[2 * j], by = points[2 * j + 1];
+            int slot = edgeSlot(ax, ay, bx, by, mask);
+            if ((ax == bx && ay == by) || edgeTable[slot] >= 0)
+                nextPoints[i] = -1;
+            else
+                edgeTable[slot] = i;
+        }
+
+        int count = 0;
+        for (int i = 0; i < pointCount; i++) {
+            int j = nextPoints[i];
+            if (j < 0)
+                continue;
+            float ax = points[2 * i], ay = points[2 * i + 1];
+            float bx = points[2 * j], by = points[2 * j + 1];
+            boolean right = ax < bx || (ax == bx && ay < by);
+            if (right || edgeTable[edgeSlot(bx, by, ax, ay, mask)] < 0) {
+                edges[4 * count] = ax;
+                edges[4 * count + 1] = ay;
+                edges[4 * count + 2] = bx;
+                edges[4 * count + 3] = by;
+                count++;
+            }
+        }
+        edgeCount = count;
+    }
+
+    /* the slot of the edge a -> b in the edge table, or the empty slot where it goes */
+    private int edgeSlot(float ax, float ay, float bx, float by, int mask) {
+        // + 0 makes -0 the same as 0
+        int hash = Float.floatToIntBits(ax + 0f);
+        hash = 31 * hash + Float.floatToIntBits(ay + 0f);
+        hash = 31 * hash + Float.floatToIntBits(bx + 0f);
+        hash = 31 * hash + Float.floatToIntBits(by + 0f);
+        hash *= 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+
+        for (int i = edgeTable[slot]; i >= 0; i = edgeTable[slot]) {
+            int j = nextPoints[i];
+            if (points[2 * i] == ax && points[2 * i + 1] == ay && points[2 * j] == bx && points[2 * j + 1] == by)
+                break;
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void checkIndex(int region) {
+        if (region < 0 || region >= regionCount)
+            throw new IndexOutOfBoundsException("Region " + region + ", count " + regionCount);
+    }
+
+
+    /**
+     * One region of a {@link CompactDiagram}. It holds the diagram and the region index only,
+     * everything is read from the arrays of the diagram.
+     */
+    public static final class RegionView {
+        private final CompactDiagram diagram;
+        private final int region;
+
+        RegionView(CompactDiagram diagram, int region) {
+            this.diagram = diagram;
+            this.region = region;
+        }
+
+        public int getIndex() {
+            return region;
+        }
+
+        public int getPointCount() {
+            return diagram.getPointCount(region);
+        }
+
+        public float getPointX(int point) {
+            return diagram.getPointX(region, point);
+        }
+
+        public float getPointY(int point) {
+            return diagram.getPointY(region, point);
+        }
+
+        public double getSiteX() {
+            return diagram.getSiteX(region);
+        }
+
+        public double getSiteY() {
+            return diagram.getSiteY(region);
+        }
+
+        public float getLeft() {
+            return diagram.getLeft(region);
+        }
+
+        public float getTop() {
+            return diagram.getTop(region);
+        }
+
+        public float getRight() {
+            return diagram.getRight(region);
+        }
+
+        public float getBottom() {
+            return diagram.getBottom(region);
+        }
+
+        public float getWidth() {
+            return diagram.getWidth(region);
+        }
+
+        public float getHeight() {
+            return diagram.getHeight(region);
+        }
+
+        public float getCenterX() {
+            return diagram.getCenterX(region);
+        }
+
+        public float getCenterY() {
+            return diagram.getCenterY(region);
+        }
+
+        public boolean contains(float x, float y) {
+            return diagram.contains(region, x, y);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.Arrays;
+
+/**
+ * Convex polygon cut by half-planes (Sutherland-Hodgman with a single clip edge at a time).
+ *
+ * It cuts the bounding box by the boundary polygon before the regions are walked, and the regions
+ * of the incremental diagram by the box and the boundary. The polygon stays convex and in order
+ * after every cut, no hull is needed.
+ *
+ * Created by quatja
+ */
+class ConvexClipper {
+
+    double[] xs = new double[16];
+    double[] ys = new double[16];
+    int count;
+
+    private double[] outX = new double[16];
+    private double[] outY = new double[16];
+
+
+    /**
+     * Starts from the given polygon
+     */
+    void set(double[] polygonX, double[] polygonY, int polygonCount) {
+        ensureCapacity(polygonCount);
+        System.arraycopy(polygonX, 0, xs, 0, polygonCount);
+        System.arraycopy(polygonY, 0, ys, 0, polygonCount);
+        count = polygonCount;
+    }
+
+    /**
+     * Starts from the rectangle, counter-clockwise with y going down
+     */
+    void setRect(double minX, double maxX, double minY, double maxY) {
+        ensureCapacity(4);
+        xs[0] = minX;
+        ys[0] = minY;
+        xs[1] = minX;
+        ys[1] = maxY;
+        xs[2] = maxX;
+        ys[2] = maxY;
+        xs[3] = maxX;
+        ys[3] = minY;
+        count = 4;
+    }
+
+    /**
+     * Keeps the part of the polygon where a * x + b * y <= c
+     */
+    void clip(double a, double b, double c) {
+        if (count == 0)
+            return;
+        if (outX.length < count + 1) {
+            outX = new double[2 * count + 2];
+            outY = new double[outX.length];
+        }
+
+        int out = 0;
+        double x1 = xs[count - 1], y1 = ys[count - 1];
+        double d1 = a * x1 + b * y1 - c;
+        for (int i = 0; i < count; i++) {
+            double x2 = xs[i], y2 = ys[i];
+            double d2 = a * x2 + b * y2 - c;
+
+            if ((d1 <= 0) != (d2 <= 0)) {
+                double t = d1 / (d1 - d2);
+                outX[out] = x1 + t * (x2 - x1);
+                outY[out++] = y1 + t * (y2 - y1);
+            }
+            if (d2 <= 0) {
+                outX[out] = x2;
+                outY[out++] = y2;
+            }
+
+            x1 = x2;
+            y1 = y2;
+            d1 = d2;
+        }
+
+        double[] swap = xs;
+        xs = outX;
+        outX = swap;
+        swap = ys;
+        ys = outY;
+        outY = swap;
+        count = out;
+    }
+
+    /**
+     * Keeps the part of the polygon inside the given convex polygon, in any winding order
+     */
+    void clipPolygon(double[] polygonX, double[] polygonY, int polygonCount) {
+        double sign = area(polygonX, polygonY, polygonCount) < 0 ? -1 : 1;
+        for (int i = 0, j = polygonCount - 1; i < polygonCount; j = i++) {
+            // inside is to the left of the edge j -> i for a positive area
+            double a = sign * (polygonY[i] - polygonY[j]);
+            double b = -sign * (polygonX[i] - polygonX[j]);
+            clip(a, b, a * polygonX[j] + b * polygonY[j]);
+        }
+    }
+
+    /**
+     * Throws an IllegalArgumentException unless the polygon is convex and not degenerate
+     */
+    static void checkPolygon(double[] polygonX, double[] polygonY) {
+        if (polygonY == null || polygonX.length != polygonY.length)
+            throw new IllegalArgumentException("The polygon X and Y counts differ");
+        int count = polygonX.length;
+        double area = count < 3 ? 0 : area(polygonX, polygonY, count);
+        if (area == 0)
+            throw new IllegalArgumentException("The polygon has no area");
+
+        // collinear vertices, like on the sides of a rounded rectangle, turn by rounding noise
+        double epsilon = 1e-9 * Math.abs(area);
+        boolean negative = false, positive = false;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count, k = (i + 2) % count;
+            double cross = (polygonX[j] - polygonX[i]) * (polygonY[k] - polygonY[j])
+                    - (polygonY[j] - polygonY[i]) * (polygonX[k] - polygonX[j]);
+            negative |= cross < -epsilon;
+            positive |= cross > epsilon;
+        }
+        if (negative && positive)
+            throw new IllegalArgumentException("The polygon is not convex");
+    }
+
+    /**
+     * Returns the doubled signed area of the polygon
+     */
+    static double area(double[] polygonX, double[] polygonY, int polygonCount) {
+        double area = 0;
+        for (int i = 0, j = polygonCount - 1; i < polygonCount; j = i++) {
+            area += polygonX[j] * polygonY[i] - polygonX[i] * polygonY[j];
+        }
+        return area;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (xs.length < capacity) {
+            xs = Arrays.copyOf(xs, 2 * capacity);
+            ys = Arrays.copyOf(ys, 2 * capacity);
+        }
+    }
+}
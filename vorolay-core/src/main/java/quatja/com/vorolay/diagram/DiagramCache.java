@@ -0,0 +1,248 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of generated diagrams, bounded by the bytes of the cached diagrams.
+ *
+ * A diagram is found by a {@link Key} holding everything its generation depends on: the sites, the
+ * bounds, the boundary polygon, the seed the sites were generated from and the generation
+ * parameters. Diagrams are copied in and out, so the users of a cached diagram can't change it.
+ * {@link #getDefault()} is the cache shared by the whole process. All the methods are
+ * thread-safe.
+ *
+ * Created by quatja
+ */
+public class DiagramCache {
+
+    /**
+     * Size bound of the default cache
+     */
+    public static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private static DiagramCache defaultCache;
+
+    // access ordered, the least recently used entry comes first
+    private final LinkedHashMap<Key, CompactDiagram> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes;
+    private long bytes;
+    private int hitCount, missCount, evictionCount;
+
+
+    /**
+     * @param maxBytes the size bound, in bytes of the cached diagrams and their keys
+     */
+    public DiagramCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cache shared by the whole process, bounded by {@link #DEFAULT_MAX_BYTES}
+     *
+     * @return the default cache
+     */
+    public static synchronized DiagramCache getDefault() {
+        if (defaultCache == null)
+            defaultCache = new DiagramCache(DEFAULT_MAX_BYTES);
+        return defaultCache;
+    }
+
+    /**
+     * Copies the cached diagram of the key into the given diagram
+     *
+     * @param key     the key of the diagram
+     * @param diagram receives the cached diagram, unchanged if there is none
+     * @return True if the diagram was cached, false otherwise
+     */
+    public synchronized boolean get(Key key, CompactDiagram diagram) {
+        CompactDiagram cached = entries.get(key);
+        if (cached == null) {
+            missCount++;
+            return false;
+        }
+
+        hitCount++;
+        diagram.set(cached);
+        return true;
+    }
+
+    /**
+     * Caches a copy of the diagram. The least recently used diagrams are evicted when the size
+     * goes over the bound, a diagram bigger than the bound isn't cached.
+     *
+     * @param key     the key of the diagram
+     * @param diagram the diagram
+     */
+    public synchronized void put(Key key, CompactDiagram diagram) {
+        CompactDiagram copy = new CompactDiagram();
+        copy.set(diagram);
+        long size = sizeOf(key, copy);
+        if (size > maxBytes)
+            return;
+
+        CompactDiagram previous = entries.put(key, copy);
+        if (previous != null)
+            bytes -= sizeOf(key, previous);
+        bytes += size;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * Evicts the least recently used diagrams until the size is at most the given one
+     *
+     * @param size size in bytes, 0 empties the cache
+     */
+    public synchronized void trimToSize(long size) {
+        Iterator<Map.Entry<Key, CompactDiagram>> iterator = entries.entrySet().iterator();
+        while (bytes > size && iterator.hasNext()) {
+            Map.Entry<Key, CompactDiagram> entry = iterator.next();
+            bytes -= sizeOf(entry.getKey(), entry.getValue());
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * Sets the size bound, the cache is trimmed to it
+     *
+     * @param maxBytes size in bytes
+     */
+    public synchronized void setMaxSize(long maxBytes) {
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    public synchronized long getMaxSize() {
+        return maxBytes;
+    }
+
+    /**
+     * Return the bytes of the cached diagrams and their keys
+     *
+     * @return size in bytes
+     */
+    public synchronized long getSize() {
+        return bytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Return the count of the {@link #get} calls which found a diagram
+     *
+     * @return hit count
+     */
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Return the count of the {@link #get} calls which found nothing
+     *
+     * @return miss count
+     */
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    private static long sizeOf(Key key, CompactDiagram diagram) {
+        return key.byteSize() + diagram.byteSize();
+    }
+
+
+    /**
+     * Everything a generated diagram depends on. The values are copied, so the arrays can be
+     * changed after the key is made, like the sites by a relaxation.
+     */
+    public static final class Key {
+        private final long seed;
+        private final double[] values;
+        private final long hash;
+
+        /**
+         * @param xValues    X of the sites
+         * @param yValues    Y of the sites
+         * @param minX       the minimum X of the bounding box
+         * @param maxX       the maximum X of the bounding box
+         * @param minY       the minimum Y of the bounding box
+         * @param maxY       the maximum Y of the bounding box
+         * @param boundaryX  X of the boundary polygon or null
+         * @param boundaryY  Y of the boundary polygon or null
+         * @param seed       the seed of the random generation of the sites, 0 if there is none
+         * @param parameters any other generation parameters, like the relaxation settings
+         */
+        public Key(double[] xValues, double[] yValues, double minX, double maxX, double minY, double maxY,
+                   double[] boundaryX, double[] boundaryY, long seed, double... parameters) {
+            int sites = xValues.length;
+            int corners = boundaryX != null ? boundaryX.length : 0;
+            values = new double[7 + 2 * sites + 2 * corners + parameters.length];
+
+            // the lengths keep the parts apart
+            int i = 0;
+            values[i++] = sites;
+            values[i++] = corners;
+            values[i++] = parameters.length;
+            values[i++] = minX;
+            values[i++] = maxX;
+            values[i++] = minY;
+            values[i++] = maxY;
+            System.arraycopy(xValues, 0, values, i, sites);
+            System.arraycopy(yValues, 0, values, i + sites, sites);
+            i += 2 * sites;
+            if (corners > 0) {
+                System.arraycopy(boundaryX, 0, values, i, corners);
+                System.arraycopy(boundaryY, 0, values, i + corners, corners);
+                i += 2 * corners;
+            }
+            System.arraycopy(parameters, 0, values, i, parameters.length);
+
+            this.seed = seed;
+            long h = seed * 0x9E3779B97F4A7C15L;
+            for (double value : values) {
+                h = (h ^ Double.doubleToLongBits(value + 0.0)) * 0x9E3779B97F4A7C15L;
+                h ^= h >>> 29;
+            }
+            this.hash = h;
+        }
+
+        /**
+         * Returns the 64-bit hash of the key. Keys with the same hash are still told apart by
+         * their values.
+         *
+         * @return the hash
+         */
+        public long getHash() {
+            return hash;
+        }
+
+        long byteSize() {
+            return 48 + 8L * values.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            Key key = (Key) obj;
+            return key.hash == hash && key.seed == seed && Arrays.equals(key.values, values);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.Arrays;
+
+/**
+ * Indexed 4-ary min-heap of vertex events, kept in primitive arrays.
+ *
+ * Events are identified by an int handle, so they can be removed in O(log n) wherever they are.
+ * They are ordered by y, then by x. Equal events come out newest first, the same way the
+ * PQhash bucket lists order them, so both queues produce the same diagram.
+ *
+ * Created by quatja
+ */
+class EventHeap {
+
+    private int size;
+    private long sequence;
+
+    // heap slots
+    private int[] handles = new int[16];
+    private double[] ys = new double[16];
+    private double[] xs = new double[16];
+    private long[] sequences = new long[16];
+
+    // slot of every handle, -1 if the handle isn't queued
+    private int[] positions = new int[16];
+
+
+    /**
+     * Empties the heap and makes room for handles from 0 to <code>handleCount</code> - 1.
+     */
+    void clear(int handleCount) {
+        size = 0;
+        sequence = 0;
+        if (positions.length < handleCount)
+            positions = new int[handleCount];
+        Arrays.fill(positions, 0, handleCount, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int handle) {
+        return handle < positions.length && positions[handle] >= 0;
+    }
+
+    void insert(int handle, double y, double x) {
+        if (handle >= positions.length) {
+            int length = positions.length;
+            positions = Arrays.copyOf(positions, Math.max(handle + 1, length * 2));
+            Arrays.fill(positions, length, positions.length, -1);
+        }
+        if (size == handles.length) {
+            handles = Arrays.copyOf(handles, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+            xs = Arrays.copyOf(xs, size * 2);
+            sequences = Arrays.copyOf(sequences, size * 2);
+        }
+
+        int slot = size++;
+        handles[slot] = handle;
+        ys[slot] = y;
+        xs[slot] = x;
+        sequences[slot] = sequence++;
+        positions[handle] = slot;
+        siftUp(slot);
+    }
+
+    void remove(int handle) {
+        int slot = positions[handle];
+        positions[handle] = -1;
+        size--;
+        if (slot == size)
+            return;
+
+        move(size, slot);
+        if (slot > 0 && less(slot, (slot - 1) >> 2))
+            siftUp(slot);
+        else
+            siftDown(slot);
+    }
+
+    double peekY() {
+        return ys[0];
+    }
+
+    double peekX() {
+        return xs[0];
+    }
+
+    int poll() {
+        int handle = handles[0];
+        remove(handle);
+        return handle;
+    }
+
+
+    private boolean less(int a, int b) {
+        // events of coincident sites have no position (NaN), the buckets hand them out first
+        boolean undefinedA = Double.isNaN(ys[a]);
+        boolean undefinedB = Double.isNaN(ys[b]);
+        if (undefinedA || undefinedB)
+            return undefinedA && (!undefinedB || sequences[a] > sequences[b]);
+        if (ys[a] != ys[b])
+            return ys[a] < ys[b];
+        if (xs[a] != xs[b])
+            return xs[a] < xs[b];
+        return sequences[a] > sequences[b];
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >> 2;
+            if (!less(slot, parent))
+                break;
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int first = 4 * slot + 1;
+            if (first >= size)
+                break;
+
+            int smallest = first;
+            int last = Math.min(first + 4, size);
+            for (int child = first + 1; child < last; child++) {
+                if (less(child, smallest))
+                    smallest = child;
+            }
+
+            if (!less(smallest, slot))
+                break;
+            swap(slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void move(int from, int to) {
+        handles[to] = handles[from];
+        ys[to] = ys[from];
+        xs[to] = xs[from];
+        sequences[to] = sequences[from];
+        positions[handles[to]] = to;
+    }
+
+    private void swap(int a, int b) {
+        int handle = handles[a];
+        double y = ys[a];
+        double x = xs[a];
+        long seq = sequences[a];
+
+        handles[a] = handles[b];
+        ys[a] = ys[b];
+        xs[a] = xs[b];
+        sequences[a] = sequences[b];
+        positions[handles[a]] = a;
+
+        handles[b] = handle;
+        ys[b] = y;
+        xs[b] = x;
+        sequences[b] = seq;
+        positions[handle] = b;
+    }
+}
@@ -0,0 +1,612 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.Arrays;
+
+/**
+ * Doubly-connected edge list of a clipped Voronoi diagram.
+ *
+ * Every diagram edge is split into two half-edges, one for each of the regions it separates,
+ * pointing so that their region is on the left (counter-clockwise when the y axis points up).
+ * Following {@link #getNext} from {@link #getSiteHalfEdge} goes around the region in order.
+ * The parts of the boundary a region touches are half-edges without a twin. Vertices are shared:
+ * the regions meeting at a vertex refer to the same vertex index and so to the same coordinates.
+ * Edge ends closer than a tiny fraction of the boundary size are the same vertex, the sweep and
+ * the clipping can compute one vertex with different rounding, and the ends close to a boundary
+ * side are moved onto it. The vertex takes the smallest of its ends, so the order of the edges
+ * doesn't change the coordinates.
+ * Coincident sites share the region of the first of them.
+ *
+ * The diagram is owned by the engine which built it and is valid until its next generation.
+ *
+ * Created by quatja
+ */
+public class HalfEdgeDiagram {
+
+    private double[] vertexX = new double[16];
+    private double[] vertexY = new double[16];
+    private int vertexCount;
+    // the smallest end, by x and then by y, of every vertex while building
+    private double[] smallestX = new double[16];
+    private double[] smallestY = new double[16];
+
+    private int[] origins = new int[16];
+    private int[] twins = new int[16];
+    private int[] nexts = new int[16];
+    private int[] sites = new int[16];
+    private int halfEdgeCount;
+
+    private int[] siteHalfEdges = new int[16];
+    private int siteCount;
+
+    // relative to the boundary size, ends closer than this are one vertex
+    private static final double VERTEX_TOLERANCE = 1e-10;
+
+    // vertex lookup by the tolerance cell of the coordinates, open addressing
+    private int[] vertexTable = new int[16];
+    private int vertexMask;
+    private double tolerance;
+    // the cells are many tolerances big, so mostly one cell holds the vertices near a point
+    private double cellSize;
+    // the inside of an axis-aligned boundary farther than the tolerance from its sides, empty otherwise
+    private double innerMinX, innerMaxX, innerMinY, innerMaxY;
+
+    // boundary polygon, counter-clockwise, and the vertex of each of its corners
+    private double[] boundaryX;
+    private double[] boundaryY;
+    private int boundaryCount;
+    private int[] cornerVertices = new int[16];
+
+    // per-site half-edges in CSR form while linking
+    private int[] siteOffsets = new int[16];
+    private int[] siteEdges = new int[16];
+    private int[] chainStarts = new int[16];
+    private int[] chainEnds = new int[16];
+
+
+    HalfEdgeDiagram() {
+    }
+
+
+    /**
+     * Return the count of the vertices
+     *
+     * @return vertex count
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public double getVertexX(int vertex) {
+        return vertexX[vertex];
+    }
+
+    public double getVertexY(int vertex) {
+        return vertexY[vertex];
+    }
+
+    /**
+     * Return the count of the half-edges
+     *
+     * @return half-edge count
+     */
+    public int getHalfEdgeCount() {
+        return halfEdgeCount;
+    }
+
+    /**
+     * Returns the vertex a half-edge starts at. It ends at the origin of its next half-edge.
+     *
+     * @param halfEdge the half-edge
+     * @return the vertex
+     */
+    public int getOrigin(int halfEdge) {
+        return origins[halfEdge];
+    }
+
+    /**
+     * Returns the half-edge of the neighbouring region along the same edge
+     *
+     * @param halfEdge the half-edge
+     * @return the opposite half-edge or -1 if the half-edge lies on the boundary
+     */
+    public int getTwin(int halfEdge) {
+        return twins[halfEdge];
+    }
+
+    /**
+     * Returns the following half-edge of the same region
+     *
+     * @param halfEdge the half-edge
+     * @return the next half-edge
+     */
+    public int getNext(int halfEdge) {
+        return nexts[halfEdge];
+    }
+
+    /**
+     * Returns the site whose region the half-edge bounds, in the order the sites were passed to
+     * {@link Voronoi#generateVoronoi}
+     *
+     * @param halfEdge the half-edge
+     * @return the site index
+     */
+    public int getSite(int halfEdge) {
+        return sites[halfEdge];
+    }
+
+    /**
+     * Returns a half-edge of the region of a site
+     *
+     * @param site the site index
+     * @return the half-edge or -1 if the region is outside the boundary
+     */
+    public int getSiteHalfEdge(int site) {
+        return siteHalfEdges[site];
+    }
+
+
+    /* count of the vertices of the region of the site */
+    int regionSize(int site) {
+        int start = siteHalfEdges[site];
+        if (start < 0)
+            return 0;
+
+        int count = 0;
+        int halfEdge = start;
+        do {
+            count++;
+            halfEdge = nexts[halfEdge];
+        } while (halfEdge != start && halfEdge >= 0 && count <= halfEdgeCount);
+        return count;
+    }
+
+    /* writes the vertices of the region of the site in order, the arrays must hold regionSize(site) */
+    int regionPolygon(int site, double[] xs, double[] ys) {
+        int start = siteHalfEdges[site];
+        if (start < 0)
+            return 0;
+
+        int count = 0;
+        int halfEdge = start;
+        do {
+            xs[count] = vertexX[origins[halfEdge]];
+            ys[count++] = vertexY[origins[halfEdge]];
+            halfEdge = nexts[halfEdge];
+        } while (halfEdge != start && halfEdge >= 0 && count < xs.length);
+        return count;
+    }
+
+
+    /*
+     * Builds the diagram from the clipped edges. The edges are inside the bounding box already,
+     * the boundary polygon cuts them further if cutEdges is set. siteOwners maps every site to the
+     * first of the sites at the same point, the sweep splits the edges of such a group between them.
+     */
+    void build(int siteCount, double[] siteX, double[] siteY, int[] siteOwners, double[] edgeCoords, int[] edgeSites,
+               int edgeCount, double[] polygonX, double[] polygonY, int polygonCount, boolean cutEdges) {
+        this.siteCount = siteCount;
+        vertexCount = 0;
+        halfEdgeCount = 0;
+        setBoundary(polygonX, polygonY, polygonCount);
+
+        int tableSize = Integer.highestOneBit(Math.max(16, 4 * edgeCount)) << 1;
+        if (vertexTable.length < tableSize)
+            vertexTable = new int[tableSize];
+        vertexMask = tableSize - 1;
+        Arrays.fill(vertexTable, 0, tableSize, -1);
+
+        if (siteHalfEdges.length < siteCount)
+            siteHalfEdges = new int[siteCount];
+        if (siteOffsets.length < siteCount + 1)
+            siteOffsets = new int[siteCount + 1];
+        Arrays.fill(siteOffsets, 0, siteCount + 1, 0);
+
+        double extent = 0;
+        for (int i = 0; i < polygonCount; i++) {
+            extent = Math.max(extent, Math.max(Math.abs(polygonX[i] - polygonX[0]), Math.abs(polygonY[i] - polygonY[0])));
+        }
+        tolerance = extent > 0 ? extent * VERTEX_TOLERANCE : Double.MIN_NORMAL;
+        cellSize = 64 * tolerance;
+
+        boolean rectangle = polygonCount == 4;
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0, j = polygonCount - 1; i < polygonCount; j = i++) {
+            rectangle &= polygonX[i] == polygonX[j] || polygonY[i] == polygonY[j];
+            minX = Math.min(minX, polygonX[i]);
+            maxX = Math.max(maxX, polygonX[i]);
+            minY = Math.min(minY, polygonY[i]);
+            maxY = Math.max(maxY, polygonY[i]);
+        }
+        innerMinX = rectangle ? minX + tolerance : Double.MAX_VALUE;
+        innerMaxX = rectangle ? maxX - tolerance : -Double.MAX_VALUE;
+        innerMinY = minY + tolerance;
+        innerMaxY = maxY - tolerance;
+
+        // the boundary polygon is outside the box
+        if (polygonCount < 3) {
+            Arrays.fill(siteHalfEdges, 0, siteCount, -1);
+            return;
+        }
+
+        for (int i = 0; i < edgeCount; i++) {
+            int site1 = siteOwners[edgeSites[2 * i]];
+            int site2 = siteOwners[edgeSites[2 * i + 1]];
+            if (site1 != site2)
+                addEdge(edgeCoords, 4 * i, site1, site2, siteX, siteY, cutEdges);
+        }
+
+        link(siteX, siteY, siteOwners);
+
+        // the lookups are done, the vertices can leave the cells they are in
+        System.arraycopy(smallestX, 0, vertexX, 0, vertexCount);
+        System.arraycopy(smallestY, 0, vertexY, 0, vertexCount);
+    }
+
+    private void setBoundary(double[] polygonX, double[] polygonY, int polygonCount) {
+        if (boundaryX == null || boundaryX.length < polygonCount) {
+            boundaryX = new double[polygonCount];
+            boundaryY = new double[polygonCount];
+        }
+        if (cornerVertices.length < polygonCount)
+            cornerVertices = new int[polygonCount];
+
+        boolean reverse = ConvexClipper.area(polygonX, polygonY, polygonCount) < 0;
+        for (int i = 0; i < polygonCount; i++) {
+            int from = reverse ? polygonCount - 1 - i : i;
+            boundaryX[i] = polygonX[from];
+            boundaryY[i] = polygonY[from];
+            cornerVertices[i] = -1;
+        }
+        boundaryCount = polygonCount;
+    }
+
+    private void addEdge(double[] edgeCoords, int edge, int site1, int site2, double[] siteX, double[] siteY, boolean cutEdges) {
+        double x1 = edgeCoords[edge];
+        double y1 = edgeCoords[edge + 1];
+        double x2 = edgeCoords[edge + 2];
+        double y2 = edgeCoords[edge + 3];
+        // edges of coincident sites
+        if (Double.isNaN(x1 + y1 + x2 + y2))
+            return;
+
+        if (cutEdges) {
+            // Cyrus-Beck, the ends which are inside keep their exact coordinates
+            double dx = x2 - x1, dy = y2 - y1;
+            double enter = 0, exit = 1;
+            for (int i = 0, j = boundaryCount - 1; i < boundaryCount && enter <= exit; j = i++) {
+                double ex = boundaryX[i] - boundaryX[j], ey = boundaryY[i] - boundaryY[j];
+                double start = ex * (y1 - boundaryY[j]) - ey * (x1 - boundaryX[j]);
+                double slope = ex * dy - ey * dx;
+                if (slope == 0) {
+                    if (start < 0)
+                        return;
+                } else if (slope > 0) {
+                    enter = Math.max(enter, -start / slope);
+                } else {
+                    exit = Math.min(exit, -start / slope);
+                }
+            }
+            if (enter >= exit)
+                return;
+
+            if (exit < 1) {
+                x2 = x1 + exit * dx;
+                y2 = y1 + exit * dy;
+            }
+            if (enter > 0) {
+                x1 = x1 + enter * dx;
+                y1 = y1 + enter * dy;
+            }
+        }
+
+        int from = vertex(x1, y1);
+        int to = vertex(x2, y2);
+        // an edge shorter than the tolerance
+        if (from == to)
+            return;
+        x1 = vertexX[from];
+        y1 = vertexY[from];
+        x2 = vertexX[to];
+        y2 = vertexY[to];
+
+        // the region of site1 goes on the left of from -> to
+        double side = (x2 - x1) * (siteY[site1] - y1) - (y2 - y1) * (siteX[site1] - x1);
+        if (side == 0)
+            side = -((x2 - x1) * (siteY[site2] - y1) - (y2 - y1) * (siteX[site2] - x1));
+        if (side == 0)
+            return;
+        if (side < 0) {
+            int swap = site1;
+            site1 = site2;
+            site2 = swap;
+        }
+
+        int halfEdge = newHalfEdge(from, site1);
+        int twin = newHalfEdge(to, site2);
+        twins[halfEdge] = twin;
+        twins[twin] = halfEdge;
+        siteOffsets[site1]++;
+        siteOffsets[site2]++;
+    }
+
+    /*
+     * Connects the half-edges of every region into a cycle. The half-edges of a region are chains
+     * from boundary to boundary, or a single closed cycle. The chains are joined along the boundary,
+     * counter-clockwise, each to the chain starting next after its end.
+     */
+    private void link(double[] siteX, double[] siteY, int[] siteOwners) {
+        int total = 0;
+        for (int i = 0; i < siteCount; i++) {
+            total += siteOffsets[i];
+            siteOffsets[i] = total;
+        }
+        siteOffsets[siteCount] = total;
+        if (siteEdges.length < total)
+            siteEdges = new int[total];
+
+        int edgeCount = halfEdgeCount;
+        for (int h = edgeCount - 1; h >= 0; h--) {
+            siteEdges[--siteOffsets[sites[h]]] = h;
+        }
+
+        for (int site = 0; site < siteCount; site++) {
+            int from = siteOffsets[site];
+            int to = siteOffsets[site + 1];
+            siteHalfEdges[site] = from < to ? siteEdges[from] : -1;
+
+            if (siteOwners[site] != site)
+                continue;
+            if (from == to) {
+                // no neighbours inside the boundary, the whole boundary or nothing
+                if (isInside(siteX[site], siteY[site]))
+                    siteHalfEdges[site] = linkBoundary(site);
+                continue;
+            }
+
+            // a region has a handful of half-edges
+            int starts = 0, ends = 0;
+            if (chainStarts.length < to - from) {
+                chainStarts = new int[2 * (to - from)];
+                chainEnds = new int[2 * (to - from)];
+            }
+            for (int i = from; i < to; i++) {
+                int h = siteEdges[i];
+                int end = origins[twins[h]];
+                nexts[h] = -1;
+                for (int j = from; j < to; j++) {
+                    if (origins[siteEdges[j]] == end) {
+                        nexts[h] = siteEdges[j];
+                        break;
+                    }
+                }
+                if (nexts[h] < 0)
+                    chainEnds[ends++] = h;
+            }
+            for (int i = from; i < to; i++) {
+                int h = siteEdges[i];
+                boolean first = true;
+                for (int j = from; j < to && first; j++) {
+                    first = nexts[siteEdges[j]] != h;
+                }
+                if (first)
+                    chainStarts[starts++] = h;
+            }
+
+            for (int i = 0; i < ends; i++) {
+                joinAlongBoundary(site, chainEnds[i], starts);
+            }
+        }
+
+        // the owner comes first in the sort order but not in the index order
+        for (int site = 0; site < siteCount; site++) {
+            if (siteOwners[site] != site)
+                siteHalfEdges[site] = siteHalfEdges[siteOwners[site]];
+        }
+    }
+
+    /* links the end of a chain to the start of the next chain, through the corners between them */
+    private void joinAlongBoundary(int site, int end, int starts) {
+        int endVertex = origins[twins[end]];
+        double endPosition = boundaryPosition(vertexX[endVertex], vertexY[endVertex]);
+
+        int start = -1;
+        double startPosition = 0, distance = Double.MAX_VALUE;
+        for (int i = 0; i < starts; i++) {
+            int vertex = origins[chainStarts[i]];
+            double position = boundaryPosition(vertexX[vertex], vertexY[vertex]);
+            double d = position - endPosition;
+            if (d < 0)
+                d += boundaryCount;
+            // the ends of two cut edges can come out in the wrong order by rounding
+            if (d > boundaryCount - 1e-9)
+                d = 0;
+            if (d < distance) {
+                distance = d;
+                start = chainStarts[i];
+                startPosition = position;
+            }
+        }
+        if (start < 0)
+            return;
+
+        int previous = end;
+        int vertex = endVertex;
+        int corner = (int) endPosition;
+        int lastCorner = (int) startPosition;
+        if (distance >= 1 || lastCorner != corner) {
+            // walk the corners up to the side of the start
+            do {
+                corner = (corner + 1) % boundaryCount;
+                int cornerVertex = cornerVertex(corner);
+                if (cornerVertex != vertex && cornerVertex != origins[start]) {
+                    int h = newHalfEdge(vertex, site);
+                    twins[h] = -1;
+                    nexts[previous] = h;
+                    previous = h;
+                    vertex = cornerVertex;
+                }
+            } while (corner != lastCorner);
+        }
+
+        int h = newHalfEdge(vertex, site);
+        twins[h] = -1;
+        nexts[previous] = h;
+        nexts[h] = start;
+    }
+
+    private int linkBoundary(int site) {
+        int first = -1, previous = -1;
+        for (int i = 0; i < boundaryCount; i++) {
+            int h = newHalfEdge(cornerVertex(i), site);
+            twins[h] = -1;
+            if (previous >= 0)
+                nexts[previous] = h;
+            else
+                first = h;
+            previous = h;
+        }
+        nexts[previous] = first;
+        return first;
+    }
+
+    /* side index plus the part of the side before the point, so positions grow counter-clockwise */
+    private double boundaryPosition(double x, double y) {
+        int side = 0;
+        double along = 0, best = Double.MAX_VALUE;
+        for (int i = 0; i < boundaryCount; i++) {
+            int j = i + 1 == boundaryCount ? 0 : i + 1;
+            double ex = boundaryX[j] - boundaryX[i], ey = boundaryY[j] - boundaryY[i];
+            double length = ex * ex + ey * ey;
+            double t = length == 0 ? 0 : ((x - boundaryX[i]) * ex + (y - boundaryY[i]) * ey) / length;
+            t = Math.max(0, Math.min(1, t));
+            double dx = boundaryX[i] + t * ex - x, dy = boundaryY[i] + t * ey - y;
+            double distance = dx * dx + dy * dy;
+            if (distance < best) {
+                best = distance;
+                side = i;
+                along = t;
+            }
+        }
+        // the end of a side is the start of the next one
+        return along >= 1 ? (side + 1) % boundaryCount : side + along;
+    }
+
+    private boolean isInside(double x, double y) {
+        for (int i = 0, j = boundaryCount - 1; i < boundaryCount; j = i++) {
+            double cross = (boundaryX[i] - boundaryX[j]) * (y - boundaryY[j])
+                    - (boundaryY[i] - boundaryY[j]) * (x - boundaryX[j]);
+            if (cross < 0)
+                return false;
+        }
+        return true;
+    }
+
+    private int cornerVertex(int corner) {
+        if (cornerVertices[corner] < 0)
+            cornerVertices[corner] = vertex(boundaryX[corner], boundaryY[corner]);
+        return cornerVertices[corner];
+    }
+
+    /*
+     * The vertex within the tolerance of the point, or a new one. A point close to a boundary
+     * side is moved onto it first. The vertex is in the cell of the point, or in a neighbouring
+     * cell if the point is close to the side of its cell.
+     */
+    private int vertex(double x, double y) {
+        // the table is sized for the edge ends, the corners can fill it up
+        if (2 * vertexCount > vertexMask)
+            growTable();
+
+        boolean inner = x > innerMinX && x < innerMaxX && y > innerMinY && y < innerMaxY;
+        for (int i = 0, j = boundaryCount - 1; i < boundaryCount && !inner; j = i++) {
+            double ex = boundaryX[i] - boundaryX[j], ey = boundaryY[i] - boundaryY[j];
+            double cross = ex * (y - boundaryY[j]) - ey * (x - boundaryX[j]);
+            // farther than the tolerance from the line of the side
+            if (cross * cross > 2 * tolerance * tolerance * (ex * ex + ey * ey))
+                continue;
+            double length = ex * ex + ey * ey;
+            if (length == 0)
+                continue;
+            double t = ((x - boundaryX[j]) * ex + (y - boundaryY[j]) * ey) / length;
+            double px = boundaryX[j] + t * ex, py = boundaryY[j] + t * ey;
+            if (t >= 0 && t <= 1 && Math.abs(px - x) <= tolerance && Math.abs(py - y) <= tolerance) {
+                // the axis-aligned sides keep an exact coordinate
+                x = ex == 0 ? boundaryX[i] : ey == 0 ? x : px;
+                y = ey == 0 ? boundaryY[i] : ex == 0 ? y : py;
+                break;
+            }
+        }
+
+        double fx = x / cellSize, fy = y / cellSize;
+        long cellX = (long) Math.floor(fx), cellY = (long) Math.floor(fy);
+        fx = (fx - cellX) * cellSize;
+        fy = (fy - cellY) * cellSize;
+        long fromX = fx <= tolerance ? cellX - 1 : cellX, toX = fx >= cellSize - tolerance ? cellX + 1 : cellX;
+        long fromY = fy <= tolerance ? cellY - 1 : cellY, toY = fy >= cellSize - tolerance ? cellY + 1 : cellY;
+        for (long cx = fromX; cx <= toX; cx++) {
+            for (long cy = fromY; cy <= toY; cy++) {
+                int slot = hash(cx, cy) & vertexMask;
+                while (vertexTable[slot] >= 0) {
+                    int vertex = vertexTable[slot];
+                    if (Math.abs(vertexX[vertex] - x) <= tolerance && Math.abs(vertexY[vertex] - y) <= tolerance) {
+                        if (x < smallestX[vertex] || (x == smallestX[vertex] && y < smallestY[vertex])) {
+                            smallestX[vertex] = x;
+                            smallestY[vertex] = y;
+                        }
+                        return vertex;
+                    }
+                    slot = (slot + 1) & vertexMask;
+                }
+            }
+        }
+
+        int slot = hash(cellX, cellY) & vertexMask;
+        while (vertexTable[slot] >= 0)
+            slot = (slot + 1) & vertexMask;
+
+        if (vertexCount == vertexX.length) {
+            vertexX = Arrays.copyOf(vertexX, 2 * vertexCount);
+            vertexY = Arrays.copyOf(vertexY, 2 * vertexCount);
+            smallestX = Arrays.copyOf(smallestX, 2 * vertexCount);
+            smallestY = Arrays.copyOf(smallestY, 2 * vertexCount);
+        }
+        vertexX[vertexCount] = x;
+        vertexY[vertexCount] = y;
+        smallestX[vertexCount] = x;
+        smallestY[vertexCount] = y;
+        vertexTable[slot] = vertexCount;
+        return vertexCount++;
+    }
+
+    private void growTable() {
+        vertexTable = new int[2 * (vertexMask + 1)];
+        vertexMask = vertexTable.length - 1;
+        Arrays.fill(vertexTable, -1);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            int slot = hash((long) Math.floor(vertexX[vertex] / cellSize), (long) Math.floor(vertexY[vertex] / cellSize)) & vertexMask;
+            while (vertexTable[slot] >= 0)
+                slot = (slot + 1) & vertexMask;
+            vertexTable[slot] = vertex;
+        }
+    }
+
+    private static int hash(long cellX, long cellY) {
+        long bits = cellX * 31 + cellY;
+        int hash = (int) (bits ^ (bits >>> 32)) * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private int newHalfEdge(int origin, int site) {
+        if (halfEdgeCount == origins.length) {
+            int capacity = 2 * halfEdgeCount;
+            origins = Arrays.copyOf(origins, capacity);
+            twins = Arrays.copyOf(twins, capacity);
+            nexts = Arrays.copyOf(nexts, capacity);
+            sites = Arrays.copyOf(sites, capacity);
+        }
+        origins[halfEdgeCount] = origin;
+        sites[halfEdgeCount] = site;
+        nexts[halfEdgeCount] = -1;
+        return halfEdgeCount++;
+    }
+}
@@ -0,0 +1,697 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Voronoi diagram which can be edited one site at a time.
+ *
+ * The diagram is kept as its dual, a Delaunay triangulation. Adding a site replaces the triangles
+ * whose circumcircle holds it (Bowyer-Watson), removing a site re-triangulates the polygon of its
+ * neighbours, so both only touch the sites next to the edited one. A region is the polygon of the
+ * circumcenters around its site, clipped to the diagram bounds and the boundary polygon.
+ *
+ * Four far away frame vertices enclose the sites, so every site has a closed polygon. They are
+ * further from the bounds than any two points of the bounds are from each other, so they never
+ * own a part of the clipped diagram.
+ *
+ * A site on the position of another one is not in the triangulation, it shares the region of the
+ * first one, like the sites coincident in the sweep do.
+ *
+ * Site indices are the regions indices, a new site gets the next index and removing a site shifts
+ * the following sites down, the same way a {@link List} does.
+ *
+ * Created by quatja
+ */
+public class IncrementalVoronoi {
+
+    private static final int FRAME = 4;
+
+    private final double minX, maxX, minY, maxY;
+    private final double frameMinX, frameMaxX, frameMinY, frameMaxY;
+
+    // vertices, the frame vertices first, then the sites
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private int[] vertexTriangle = new int[16];
+    // the vertex in the triangulation at the same position, the vertex itself unless it came later
+    private int[] vertexOwner = new int[16];
+    private int vertexCount;
+    private int coincidentCount;
+
+    // triangles, counter-clockwise. The neighbour n of a triangle is across the edge opposite to its vertex n
+    private int[] triangleVertices = new int[48];
+    private int[] triangleNeighbours = new int[48];
+    private int[] triangleMarks = new int[16];
+    private int triangleCount;
+    private int[] freeTriangles = new int[16];
+    private int freeCount;
+    private int lastTriangle;
+    private int mark;
+
+    // scratch
+    private int[] stack = new int[16];
+    private int[] cavity = new int[16];
+    private int[] boundary = new int[48];
+    private int[] startOf = new int[16];
+    private int[] endOf = new int[16];
+    private int[] ring = new int[16];
+    private int[] ringTriangles = new int[16];
+    private int[] ringSlots = new int[16];
+    private double[] polygonX = new double[16], polygonY = new double[16];
+    private final ConvexClipper clipper = new ConvexClipper();
+    private double[] boundaryX, boundaryY;
+
+
+    /**
+     * Creates an empty diagram with the given bounds. The sites are expected to lie inside them.
+     *
+     * @param minX The minimum X of the bounding box around the voronoi
+     * @param maxX The maximum X of the bounding box around the voronoi
+     * @param minY The minimum Y of the bounding box around the voronoi
+     * @param maxY The maximum Y of the bounding box around the voronoi
+     */
+    public IncrementalVoronoi(double minX, double maxX, double minY, double maxY) {
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+
+        double margin = 4 * (maxX - minX + maxY - minY) + 1;
+        frameMinX = minX - margin;
+        frameMaxX = maxX + margin;
+        frameMinY = minY - margin;
+        frameMaxY = maxY + margin;
+
+        clear();
+    }
+
+    /**
+     * Sets a convex polygon the regions are clipped to, on top of the bounds. Regions of the sites
+     * outside of it can be empty.
+     *
+     * @param xValues X of the polygon vertices in any winding order, or null to clip to the bounds only
+     * @param yValues Y of the polygon vertices
+     */
+    public void setBoundary(double[] xValues, double[] yValues) {
+        if (xValues == null) {
+            boundaryX = null;
+            boundaryY = null;
+            return;
+        }
+        ConvexClipper.checkPolygon(xValues, yValues);
+        boundaryX = xValues.clone();
+        boundaryY = yValues.clone();
+    }
+
+    /**
+     * Replaces all the sites.
+     *
+     * @param xValues Array of X values for each site.
+     * @param yValues Array of Y values for each site. Must be identical length to xValues
+     */
+    public void setSites(double[] xValues, double[] yValues) {
+        clear();
+
+        int count = xValues.length;
+        ensureVertexCapacity(FRAME + count);
+        for (int i = 0; i < count; i++) {
+            xs[FRAME + i] = xValues[i];
+            ys[FRAME + i] = yValues[i];
+        }
+        vertexCount = FRAME + count;
+
+        // in sweep order, so every point location starts next to the previous site
+        SiteSorter sorter = new SiteSorter();
+        sorter.sort(xValues, yValues, count);
+        for (int i = 0; i < count; i++) {
+            insertVertex(FRAME + sorter.order[i]);
+        }
+    }
+
+    /**
+     * Return the count of the sites
+     *
+     * @return site count
+     */
+    public int getSiteCount() {
+        return vertexCount - FRAME;
+    }
+
+    /**
+     * Adds a site. It gets the index {@link #getSiteCount()} had before the call.
+     *
+     * @param x X of the site
+     * @param y Y of the site
+     * @return indices of the regions which have changed, the new one included
+     */
+    public int[] addSite(double x, double y) {
+        ensureVertexCapacity(vertexCount + 1);
+        int vertex = vertexCount;
+        xs[vertex] = x;
+        ys[vertex] = y;
+        vertexCount++;
+
+        int boundaryCount;
+        try {
+            boundaryCount = insertVertex(vertex);
+        } catch (IllegalArgumentException e) {
+            vertexCount--;
+            throw e;
+        }
+
+        int[] changed = new int[boundaryCount + 1];
+        int count = 0;
+        for (int i = 0; i < boundaryCount; i++) {
+            int neighbour = boundary[3 * i];
+            if (neighbour >= FRAME)
+                changed[count++] = neighbour - FRAME;
+        }
+        changed[count++] = vertex - FRAME;
+        return withCoincident(changed, count);
+    }
+
+    /**
+     * Removes a site. The indices of the following sites go down by one.
+     *
+     * @param index index of the site
+     * @return indices of the regions which have changed, after the removal
+     */
+    public int[] removeSite(int index) {
+        if (index < 0 || index >= getSiteCount())
+            throw new IndexOutOfBoundsException("Site " + index + ", count " + getSiteCount());
+
+        int vertex = FRAME + index;
+        int ringCount = 0;
+        if (vertexOwner[vertex] == vertex) {
+            // a coincident site takes the place of the vertex, then no region changes
+            int heir = -1;
+            for (int i = FRAME; i < vertexCount; i++) {
+                if (i != vertex && vertexOwner[i] == vertex) {
+                    if (heir < 0)
+                        heir = i;
+                    vertexOwner[i] = heir;
+                }
+            }
+            if (heir >= 0) {
+                coincidentCount--;
+                for (int i = 0; i < 3 * triangleCount; i++) {
+                    if (triangleVertices[i] == vertex)
+                        triangleVertices[i] = heir;
+                }
+                vertexTriangle[heir] = vertexTriangle[vertex];
+            } else {
+                ringCount = deleteVertex(vertex);
+            }
+        } else {
+            coincidentCount--;
+        }
+
+        // drop the vertex, the following ones move down
+        System.arraycopy(xs, vertex + 1, xs, vertex, vertexCount - vertex - 1);
+        System.arraycopy(ys, vertex + 1, ys, vertex, vertexCount - vertex - 1);
+        System.arraycopy(vertexTriangle, vertex + 1, vertexTriangle, vertex, vertexCount - vertex - 1);
+        System.arraycopy(vertexOwner, vertex + 1, vertexOwner, vertex, vertexCount - vertex - 1);
+        vertexCount--;
+        for (int i = 0; i < 3 * triangleCount; i++) {
+            if (triangleVertices[i] > vertex)
+                triangleVertices[i]--;
+        }
+        for (int i = FRAME; i < vertexCount; i++) {
+            if (vertexOwner[i] > vertex)
+                vertexOwner[i]--;
+        }
+
+        int[] changed = new int[ringCount];
+        int count = 0;
+        for (int i = 0; i < ringCount; i++) {
+            int neighbour = ring[i];
+            if (neighbour >= FRAME)
+                changed[count++] = (neighbour > vertex ? neighbour - 1 : neighbour) - FRAME;
+        }
+        return withCoincident(changed, count);
+    }
+
+    /* the changed sites and the sites coincident with them, which share their regions */
+    private int[] withCoincident(int[] changed, int count) {
+        if (coincidentCount == 0)
+            return Arrays.copyOf(changed, count);
+
+        int ownerCount = count;
+        for (int i = FRAME; i < vertexCount; i++) {
+            if (vertexOwner[i] == i)
+                continue;
+            for (int j = 0; j < ownerCount; j++) {
+                if (vertexOwner[i] == FRAME + changed[j]) {
+                    if (count == changed.length)
+                        changed = Arrays.copyOf(changed, count * 2);
+                    changed[count++] = i - FRAME;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Builds the region of a site.
+     *
+     * @param index index of the site
+     * @return the region
+     */
+    public VoronoiRegion getRegion(int index) {
+        clipRegion(index);
+
+        VoronoiRegion region = new VoronoiRegion();
+        region.site = new VoronoiRegion.VoronoiPoint(xs[FRAME + index], ys[FRAME + index]);
+        region.screen_width = maxX;
+        region.screen_height = maxY;
+        region.setPolygon(clipper.xs, clipper.ys, clipper.count);
+        return region;
+    }
+
+    /**
+     * Writes the region of a site into a compact diagram at the same index. The index may be the
+     * region count of the compact diagram, then the region is appended.
+     *
+     * @param index   index of the site
+     * @param diagram receives the region
+     */
+    public void getRegion(int index, CompactDiagram diagram) {
+        clipRegion(index);
+        diagram.setRegion(index, xs[FRAME + index], ys[FRAME + index], clipper.xs, clipper.ys, clipper.count);
+    }
+
+    /**
+     * Builds the regions of all the sites, in the site order
+     *
+     * @return regions
+     */
+    public List<VoronoiRegion> getRegions() {
+        int count = getSiteCount();
+        List<VoronoiRegion> regions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            regions.add(getRegion(i));
+        }
+        return regions;
+    }
+
+    /**
+     * Writes the regions of all the sites into a compact diagram, in the site order
+     *
+     * @param diagram receives the regions, its previous content is replaced
+     */
+    public void getRegions(CompactDiagram diagram) {
+        int count = getSiteCount();
+        diagram.setRegionCount(0);
+        for (int i = 0; i < count; i++) {
+            getRegion(i, diagram);
+        }
+    }
+
+    /* the region polygon of a site, left in the clipper */
+    private void clipRegion(int index) {
+        int vertex = vertexOwner[FRAME + index];
+
+        int count = 0;
+        int start = vertexTriangle[vertex];
+        int triangle = start;
+        do {
+            if (count == polygonX.length) {
+                polygonX = Arrays.copyOf(polygonX, count * 2);
+                polygonY = Arrays.copyOf(polygonY, count * 2);
+            }
+            circumcenter(triangle, count);
+            count++;
+
+            int corner = cornerOf(triangle, vertex);
+            triangle = triangleNeighbours[3 * triangle + (corner + 1) % 3];
+        } while (triangle != start);
+
+        clipper.set(polygonX, polygonY, count);
+        clipper.clip(-1, 0, -minX);
+        clipper.clip(1, 0, maxX);
+        clipper.clip(0, -1, -minY);
+        clipper.clip(0, 1, maxY);
+        if (boundaryX != null)
+            clipper.clipPolygon(boundaryX, boundaryY, boundaryX.length);
+    }
+
+
+    private void clear() {
+        vertexCount = FRAME;
+        coincidentCount = 0;
+        xs[0] = frameMinX;
+        ys[0] = frameMinY;
+        xs[1] = frameMaxX;
+        ys[1] = frameMinY;
+        xs[2] = frameMaxX;
+        ys[2] = frameMaxY;
+        xs[3] = frameMinX;
+        ys[3] = frameMaxY;
+        for (int i = 0; i < FRAME; i++) {
+            vertexOwner[i] = i;
+        }
+
+        triangleCount = 0;
+        freeCount = 0;
+        int first = newTriangle(0, 1, 2);
+        int second = newTriangle(0, 2, 3);
+        triangleNeighbours[3 * first + 1] = second;
+        triangleNeighbours[3 * second + 2] = first;
+        vertexTriangle[0] = first;
+        vertexTriangle[1] = first;
+        vertexTriangle[2] = first;
+        vertexTriangle[3] = second;
+        lastTriangle = first;
+    }
+
+    /*
+     * Inserts the vertex into the triangulation. The boundary of the replaced triangles is left in
+     * boundary, as (a, b, outer triangle) triples, and its length is returned. A vertex on the
+     * position of another one only gets it as the owner, nothing is replaced.
+     */
+    private int insertVertex(int vertex) {
+        double x = xs[vertex];
+        double y = ys[vertex];
+        if (!(x > frameMinX && x < frameMaxX && y > frameMinY && y < frameMaxY))
+            throw new IllegalArgumentException("The site " + x + ", " + y + " is too far from the bounds");
+
+        int start = locate(x, y);
+        for (int i = 0; i < 3; i++) {
+            int other = triangleVertices[3 * start + i];
+            if (xs[other] == x && ys[other] == y) {
+                vertexOwner[vertex] = other;
+                coincidentCount++;
+                return 0;
+            }
+        }
+        vertexOwner[vertex] = vertex;
+
+        // the triangles whose circumcircle holds the vertex
+        mark++;
+        int cavityCount = 0;
+        int boundaryCount = 0;
+        int stackSize = 0;
+        stack[stackSize++] = start;
+        triangleMarks[start] = mark;
+        while (stackSize > 0) {
+            int triangle = stack[--stackSize];
+            if (cavityCount == cavity.length)
+                cavity = Arrays.copyOf(cavity, cavityCount * 2);
+            cavity[cavityCount++] = triangle;
+
+            for (int i = 0; i < 3; i++) {
+                int neighbour = triangleNeighbours[3 * triangle + i];
+                if (neighbour >= 0 && triangleMarks[neighbour] == mark)
+                    continue;
+
+                if (neighbour >= 0 && inCircle(neighbour, x, y)) {
+                    triangleMarks[neighbour] = mark;
+                    if (stackSize == stack.length)
+                        stack = Arrays.copyOf(stack, stackSize * 2);
+                    stack[stackSize++] = neighbour;
+                } else {
+                    if (3 * boundaryCount == boundary.length)
+                        boundary = Arrays.copyOf(boundary, boundary.length * 2);
+                    boundary[3 * boundaryCount] = triangleVertices[3 * triangle + (i + 1) % 3];
+                    boundary[3 * boundaryCount + 1] = triangleVertices[3 * triangle + (i + 2) % 3];
+                    boundary[3 * boundaryCount + 2] = neighbour;
+                    boundaryCount++;
+                }
+            }
+        }
+
+        for (int i = 0; i < cavityCount; i++) {
+            freeTriangle(cavity[i]);
+        }
+
+        // fan the boundary around the vertex
+        for (int i = 0; i < boundaryCount; i++) {
+            int a = boundary[3 * i];
+            int b = boundary[3 * i + 1];
+            int outer = boundary[3 * i + 2];
+
+            int triangle = newTriangle(a, b, vertex);
+            triangleNeighbours[3 * triangle + 2] = outer;
+            if (outer >= 0)
+                replaceNeighbour(outer, a, b, triangle);
+
+            startOf[a] = triangle;
+            endOf[b] = triangle;
+            vertexTriangle[a] = triangle;
+            vertexTriangle[b] = triangle;
+            vertexTriangle[vertex] = triangle;
+            lastTriangle = triangle;
+        }
+        for (int i = 0; i < boundaryCount; i++) {
+            int a = boundary[3 * i];
+            int b = boundary[3 * i + 1];
+            int triangle = startOf[a];
+            triangleNeighbours[3 * triangle] = startOf[b];
+            triangleNeighbours[3 * triangle + 1] = endOf[a];
+        }
+
+        return boundaryCount;
+    }
+
+    /*
+     * Removes the vertex from the triangulation. Its neighbours are left in ring, counter-clockwise,
+     * and their count is returned.
+     */
+    private int deleteVertex(int vertex) {
+        // the star of the vertex, counter-clockwise
+        int ringCount = 0;
+        int start = vertexTriangle[vertex];
+        int triangle = start;
+        do {
+            int corner = cornerOf(triangle, vertex);
+            if (ringCount == ring.length) {
+                cavity = Arrays.copyOf(cavity, ringCount * 2);
+                ring = Arrays.copyOf(ring, ringCount * 2);
+                ringTriangles = Arrays.copyOf(ringTriangles, ringCount * 2);
+                ringSlots = Arrays.copyOf(ringSlots, ringCount * 2);
+            }
+
+            cavity[ringCount] = triangle;
+            // the ring edge (ring[n], ring[n + 1]) and the triangle on its other side
+            ring[ringCount] = triangleVertices[3 * triangle + (corner + 1) % 3];
+            int outer = triangleNeighbours[3 * triangle + corner];
+            ringTriangles[ringCount] = outer;
+            ringSlots[ringCount] = slotOf(outer, triangle);
+            ringCount++;
+
+            triangle = triangleNeighbours[3 * triangle + (corner + 1) % 3];
+        } while (triangle != start);
+
+        for (int i = 0; i < ringCount; i++) {
+            freeTriangle(cavity[i]);
+        }
+
+        // clip Delaunay ears off the ring until a triangle is left
+        int[] polygon = Arrays.copyOf(ring, ringCount);
+        int size = ringCount;
+        while (size > 3) {
+            int ear = findEar(polygon, size);
+            int previous = (ear + size - 1) % size;
+            int next = (ear + 1) % size;
+
+            int earTriangle = newTriangle(polygon[previous], polygon[ear], polygon[next]);
+            linkEdge(earTriangle, 2, previous);
+            linkEdge(earTriangle, 0, ear);
+            vertexTriangle[polygon[previous]] = earTriangle;
+            vertexTriangle[polygon[ear]] = earTriangle;
+            vertexTriangle[polygon[next]] = earTriangle;
+
+            // the diagonal replaces the two clipped edges
+            ringTriangles[previous] = earTriangle;
+            ringSlots[previous] = 1;
+            System.arraycopy(polygon, ear + 1, polygon, ear, size - ear - 1);
+            System.arraycopy(ringTriangles, ear + 1, ringTriangles, ear, size - ear - 1);
+            System.arraycopy(ringSlots, ear + 1, ringSlots, ear, size - ear - 1);
+            size--;
+        }
+
+        int last = newTriangle(polygon[0], polygon[1], polygon[2]);
+        linkEdge(last, 2, 0);
+        linkEdge(last, 0, 1);
+        linkEdge(last, 1, 2);
+        vertexTriangle[polygon[0]] = last;
+        vertexTriangle[polygon[1]] = last;
+        vertexTriangle[polygon[2]] = last;
+        lastTriangle = last;
+
+        return ringCount;
+    }
+
+    /* links the edge slot of the triangle with the polygon edge n */
+    private void linkEdge(int triangle, int slot, int edge) {
+        int outer = ringTriangles[edge];
+        triangleNeighbours[3 * triangle + slot] = outer;
+        if (outer >= 0)
+            triangleNeighbours[3 * outer + ringSlots[edge]] = triangle;
+    }
+
+    private int findEar(int[] polygon, int size) {
+        int fallback = -1;
+        double fallbackArea = 0;
+
+        for (int i = 0; i < size; i++) {
+            int a = polygon[(i + size - 1) % size];
+            int b = polygon[i];
+            int c = polygon[(i + 1) % size];
+
+            double area = orient(a, b, xs[c], ys[c]);
+            if (area <= 0)
+                continue;
+            if (fallback < 0 || area > fallbackArea) {
+                fallback = i;
+                fallbackArea = area;
+            }
+
+            boolean empty = true;
+            for (int j = 0; j < size && empty; j++) {
+                int other = polygon[j];
+                if (other != a && other != b && other != c)
+                    empty = !inCircle(a, b, c, xs[other], ys[other]);
+            }
+            if (empty)
+                return i;
+        }
+
+        // rounding errors on cocircular neighbours, any convex corner does
+        return fallback >= 0 ? fallback : 0;
+    }
+
+    /* walks from the last touched triangle to the one holding the point */
+    private int locate(double x, double y) {
+        int triangle = lastTriangle;
+        int steps = 0;
+        walk:
+        while (true) {
+            for (int i = 0; i < 3; i++) {
+                // start from a different edge every step, so the walk doesn't cycle
+                int edge = (i + steps) % 3;
+                int a = triangleVertices[3 * triangle + (edge + 1) % 3];
+                int b = triangleVertices[3 * triangle + (edge + 2) % 3];
+                int neighbour = triangleNeighbours[3 * triangle + edge];
+                if (neighbour >= 0 && orient(a, b, x, y) < 0) {
+                    triangle = neighbour;
+                    steps++;
+                    continue walk;
+                }
+            }
+            return triangle;
+        }
+    }
+
+    private int newTriangle(int a, int b, int c) {
+        int triangle;
+        if (freeCount > 0) {
+            triangle = freeTriangles[--freeCount];
+        } else {
+            if (3 * triangleCount == triangleVertices.length) {
+                triangleVertices = Arrays.copyOf(triangleVertices, triangleVertices.length * 2);
+                triangleNeighbours = Arrays.copyOf(triangleNeighbours, triangleNeighbours.length * 2);
+                triangleMarks = Arrays.copyOf(triangleMarks, triangleMarks.length * 2);
+            }
+            triangle = triangleCount++;
+            triangleMarks[triangle] = 0;
+        }
+
+        triangleVertices[3 * triangle] = a;
+        triangleVertices[3 * triangle + 1] = b;
+        triangleVertices[3 * triangle + 2] = c;
+        triangleNeighbours[3 * triangle] = -1;
+        triangleNeighbours[3 * triangle + 1] = -1;
+        triangleNeighbours[3 * triangle + 2] = -1;
+        return triangle;
+    }
+
+    private void freeTriangle(int triangle) {
+        triangleVertices[3 * triangle] = -1;
+        if (freeCount == freeTriangles.length)
+            freeTriangles = Arrays.copyOf(freeTriangles, freeCount * 2);
+        freeTriangles[freeCount++] = triangle;
+    }
+
+    /* points the neighbour of the triangle across the edge (a, b) to the replacement */
+    private void replaceNeighbour(int triangle, int a, int b, int replacement) {
+        for (int i = 0; i < 3; i++) {
+            int u = triangleVertices[3 * triangle + (i + 1) % 3];
+            int v = triangleVertices[3 * triangle + (i + 2) % 3];
+            if (u == b && v == a) {
+                triangleNeighbours[3 * triangle + i] = replacement;
+                return;
+            }
+        }
+    }
+
+    private int cornerOf(int triangle, int vertex) {
+        if (triangleVertices[3 * triangle] == vertex)
+            return 0;
+        return triangleVertices[3 * triangle + 1] == vertex ? 1 : 2;
+    }
+
+    private int slotOf(int triangle, int neighbour) {
+        if (triangle < 0)
+            return -1;
+        if (triangleNeighbours[3 * triangle] == neighbour)
+            return 0;
+        return triangleNeighbours[3 * triangle + 1] == neighbour ? 1 : 2;
+    }
+
+    private void ensureVertexCapacity(int capacity) {
+        if (capacity <= xs.length)
+            return;
+
+        int length = Math.max(capacity, xs.length * 2);
+        xs = Arrays.copyOf(xs, length);
+        ys = Arrays.copyOf(ys, length);
+        vertexTriangle = Arrays.copyOf(vertexTriangle, length);
+        vertexOwner = Arrays.copyOf(vertexOwner, length);
+        startOf = new int[length];
+        endOf = new int[length];
+    }
+
+
+    /*
+     * Geometry
+     */
+
+    private double orient(int a, int b, double x, double y) {
+        return (xs[b] - xs[a]) * (y - ys[a]) - (ys[b] - ys[a]) * (x - xs[a]);
+    }
+
+    private boolean inCircle(int triangle, double x, double y) {
+        return inCircle(triangleVertices[3 * triangle], triangleVertices[3 * triangle + 1],
+                triangleVertices[3 * triangle + 2], x, y);
+    }
+
+    private boolean inCircle(int a, int b, int c, double x, double y) {
+        double ax = xs[a] - x, ay = ys[a] - y;
+        double bx = xs[b] - x, by = ys[b] - y;
+        double cx = xs[c] - x, cy = ys[c] - y;
+
+        double det = (ax * ax + ay * ay) * (bx * cy - cx * by)
+                - (bx * bx + by * by) * (ax * cy - cx * ay)
+                + (cx * cx + cy * cy) * (ax * by - bx * ay);
+        return det > 0;
+    }
+
+    private void circumcenter(int triangle, int index) {
+        int a = triangleVertices[3 * triangle];
+        int b = triangleVertices[3 * triangle + 1];
+        int c = triangleVertices[3 * triangle + 2];
+
+        double bx = xs[b] - xs[a], by = ys[b] - ys[a];
+        double cx = xs[c] - xs[a], cy = ys[c] - ys[a];
+        double d = 2 * (bx * cy - by * cx);
+        double b2 = bx * bx + by * by;
+        double c2 = cx * cx + cy * cy;
+
+        polygonX[index] = xs[a] + (cy * b2 - by * c2) / d;
+        polygonY[index] = ys[a] + (bx * c2 - cx * b2) / d;
+    }
+}
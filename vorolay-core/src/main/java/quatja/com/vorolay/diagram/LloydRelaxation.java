@@ -0,0 +1,112 @@
+package quatja.com.vorolay.diagram;
+
+/**
+ * Lloyd relaxation: moves every site to the centroid of its region and regenerates the diagram,
+ * which evens out the region sizes. It stops after the iteration count, when no site moves more
+ * than the convergence threshold or when the time budget is spent, whichever comes first.
+ *
+ * Created by quatja
+ */
+public class LloydRelaxation {
+
+    private final Voronoi voronoi;
+
+    private int maxIterations = 10;
+    private double threshold = 0.5;
+    private long timeBudget = 0;
+
+    private double[] centroidX, centroidY;
+    private int iterations;
+
+
+    /**
+     * Relaxes with the given engine. This switches the engine to the workspace reuse
+     * ({@link Voronoi#setReuseWorkspace}) for good, so the iterations run on the arrays and objects
+     * of the previous one. Call setReuseWorkspace(false) after the relaxation to turn it off again.
+     *
+     * @param voronoi the engine, it keeps the diagram of the relaxed sites
+     */
+    public LloydRelaxation(Voronoi voronoi) {
+        this.voronoi = voronoi;
+        voronoi.setReuseWorkspace(true);
+    }
+
+    /**
+     * Sets the maximum count of iterations
+     *
+     * @param iterations iteration count
+     */
+    public void setMaxIterations(int iterations) {
+        this.maxIterations = iterations;
+    }
+
+    /**
+     * Sets the convergence threshold. The relaxation stops when no site moves further than it.
+     *
+     * @param threshold distance in the site units
+     */
+    public void setConvergenceThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Sets the time budget. No new iteration is started once it is spent.
+     *
+     * @param millis budget in milliseconds, 0 for no limit
+     */
+    public void setTimeBudget(long millis) {
+        this.timeBudget = millis;
+    }
+
+    /**
+     * Return the count of iterations the last {@link #relax} call made
+     *
+     * @return iteration count
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Relaxes the sites in place. The engine is left with the diagram of the relaxed sites, so
+     * {@link Voronoi#getRegions} can be called right after.
+     *
+     * @param xValues Array of X values for each site.
+     * @param yValues Array of Y values for each site. Must be identical length to xValues
+     * @param minX The minimum X of the bounding box around the voronoi
+     * @param maxX The maximum X of the bounding box around the voronoi
+     * @param minY The minimum Y of the bounding box around the voronoi
+     * @param maxY The maximum Y of the bounding box around the voronoi
+     * @return True if the sites converged, false if the iterations or the time ran out
+     */
+    public boolean relax(double[] xValues, double[] yValues, double minX, double maxX, double minY, double maxY) {
+        long deadline = timeBudget > 0 ? System.nanoTime() + timeBudget * 1000000 : Long.MAX_VALUE;
+        int count = xValues.length;
+        if (centroidX == null || centroidX.length < count) {
+            centroidX = new double[count];
+            centroidY = new double[count];
+        }
+
+        iterations = 0;
+        voronoi.generateVoronoi(xValues, yValues, minX, maxX, minY, maxY);
+        while (iterations < maxIterations && System.nanoTime() < deadline) {
+            voronoi.getCentroids(centroidX, centroidY);
+
+            double maxMove = 0;
+            for (int i = 0; i < count; i++) {
+                double dx = centroidX[i] - xValues[i];
+                double dy = centroidY[i] - yValues[i];
+                maxMove = Math.max(maxMove, dx * dx + dy * dy);
+                xValues[i] = centroidX[i];
+                yValues[i] = centroidY[i];
+            }
+
+            voronoi.generateVoronoi(xValues, yValues, minX, maxX, minY, maxY);
+            iterations++;
+
+            if (maxMove < threshold * threshold)
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,186 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Orders sites by y, then by x, then by their input index, the order the sweep consumes them in.
+ *
+ * The coordinates are turned into order-preserving long keys and the site indices are sorted with
+ * a stable LSD radix sort, first by the x key, then by the y key. Big inputs are split into ranges
+ * that are radix sorted in parallel and merged. The scratch arrays are kept for the next call.
+ *
+ * Created by quatja
+ */
+class SiteSorter {
+
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 17;
+
+    private double[] xValues, yValues;
+
+    /**
+     * Site indices in the sorted order, valid for the first n entries after {@link #sort}
+     */
+    int[] order;
+
+    private int[] orderBuffer;
+    private long[] keys, keyBuffer;
+    private int[] counts;
+
+
+    void sort(double[] xValues, double[] yValues, int n) {
+        this.xValues = xValues;
+        this.yValues = yValues;
+
+        if (order == null || order.length < n) {
+            order = new int[n];
+            orderBuffer = new int[n];
+            keys = new long[n];
+            keyBuffer = new long[n];
+        }
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        if (n >= PARALLEL_SORT_THRESHOLD && Workers.parallelism() > 1) {
+            int leaf = Math.max(INSERTION_SORT_THRESHOLD, n / (4 * Workers.parallelism()));
+            Workers.pool().invoke(new SortTask(0, n, leaf));
+        } else {
+            if (counts == null && n >= INSERTION_SORT_THRESHOLD)
+                counts = new int[RADIX];
+            sortRange(0, n, counts);
+        }
+
+        this.xValues = null;
+        this.yValues = null;
+    }
+
+    private void sortRange(int from, int to, int[] counts) {
+        if (to - from < INSERTION_SORT_THRESHOLD) {
+            insertionSort(from, to);
+            return;
+        }
+
+        // least significant key first, the passes are stable
+        for (int i = from; i < to; i++) {
+            keys[i] = key(xValues[order[i]]);
+        }
+        radixPasses(from, to, counts);
+
+        for (int i = from; i < to; i++) {
+            keys[i] = key(yValues[order[i]]);
+        }
+        radixPasses(from, to, counts);
+    }
+
+    private void radixPasses(int from, int to, int[] counts) {
+        int n = to - from;
+        for (int shift = 0; shift < 64; shift += RADIX_BITS) {
+            for (int i = 0; i < RADIX; i++) {
+                counts[i] = 0;
+            }
+            for (int i = from; i < to; i++) {
+                counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+            }
+
+            // all keys share this digit
+            if (counts[(int) (keys[from] >>> shift) & (RADIX - 1)] == n)
+                continue;
+
+            int sum = from;
+            for (int i = 0; i < RADIX; i++) {
+                int count = counts[i];
+                counts[i] = sum;
+                sum += count;
+            }
+
+            for (int i = from; i < to; i++) {
+                int position = counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+                keyBuffer[position] = keys[i];
+                orderBuffer[position] = order[i];
+            }
+
+            System.arraycopy(keyBuffer, from, keys, from, n);
+            System.arraycopy(orderBuffer, from, order, from, n);
+        }
+    }
+
+    private void insertionSort(int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int site = order[i];
+            int j = i - 1;
+            while (j >= from && compare(order[j], site) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = site;
+        }
+    }
+
+    private void merge(int from, int middle, int to) {
+        int left = from;
+        int right = middle;
+        int out = from;
+
+        while (left < middle && right < to) {
+            if (compare(order[right], order[left]) < 0)
+                orderBuffer[out++] = order[right++];
+            else
+                orderBuffer[out++] = order[left++];
+        }
+        while (left < middle) {
+            orderBuffer[out++] = order[left++];
+        }
+        while (right < to) {
+            orderBuffer[out++] = order[right++];
+        }
+
+        System.arraycopy(orderBuffer, from, order, from, to - from);
+    }
+
+    private int compare(int a, int b) {
+        double ya = yValues[a] + 0.0, yb = yValues[b] + 0.0;
+        if (ya != yb)
+            return ya < yb ? -1 : 1;
+        double xa = xValues[a] + 0.0, xb = xValues[b] + 0.0;
+        if (xa != xb)
+            return xa < xb ? -1 : 1;
+        return a < b ? -1 : (a > b ? 1 : 0);
+    }
+
+    /**
+     * Maps a double to a long whose unsigned order is the numeric order of the doubles.
+     * -0.0 and 0.0 map to the same key.
+     */
+    static long key(double value) {
+        long bits = Double.doubleToLongBits(value + 0.0);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+
+    private class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to, leaf;
+
+        SortTask(int from, int to, int leaf) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leaf) {
+                sortRange(from, to, new int[RADIX]);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(from, middle, leaf), new SortTask(middle, to, leaf));
+            merge(from, middle, to);
+        }
+    }
+}
@@ -0,0 +1,2363 @@
+package quatja.com.vorolay.diagram;
+
+/*
+ * The author of this software is Steven Fortune.  Copyright (c) 1994 by AT&T
+ * Bell Laboratories.
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose without fee is hereby granted, provided that this entire notice
+ * is included in all copies of any software which is or includes a copy
+ * or modification of this software and in all copies of the supporting
+ * documentation for such software.
+ * THIS SOFTWARE IS BEING PROVIDED "AS IS", WITHOUT ANY EXPRESS OR IMPLIED
+ * WARRANTY.  IN PARTICULAR, NEITHER THE AUTHORS NOR AT&T MAKE ANY
+ * REPRESENTATION OR WARRANTY OF ANY KIND CONCERNING THE MERCHANTABILITY
+ * OF THIS SOFTWARE OR ITS FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+
+/* 
+ * This code was originally written by Stephan Fortune in C code.  I, Shane O'Sullivan,
+ * have since modified it, encapsulating it in a C++ class and, fixing memory leaks and
+ * adding accessors to the Voronoi Edges.
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose without fee is hereby granted, provided that this entire notice
+ * is included in all copies of any software which is or includes a copy
+ * or modification of this software and in all copies of the supporting
+ * documentation for such software.
+ * THIS SOFTWARE IS BEING PROVIDED "AS IS", WITHOUT ANY EXPRESS OR IMPLIED
+ * WARRANTY.  IN PARTICULAR, NEITHER THE AUTHORS NOR AT&T MAKE ANY
+ * REPRESENTATION OR WARRANTY OF ANY KIND CONCERNING THE MERCHANTABILITY
+ * OF THIS SOFTWARE OR ITS FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+
+/* 
+ * Java Version by Zhenyu Pan
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose without fee is hereby granted, provided that this entire notice
+ * is included in all copies of any software which is or includes a copy
+ * or modification of this software and in all copies of the supporting
+ * documentation for such software.
+ * THIS SOFTWARE IS BEING PROVIDED "AS IS", WITHOUT ANY EXPRESS OR IMPLIED
+ * WARRANTY.  IN PARTICULAR, NEITHER THE AUTHORS NOR AT&T MAKE ANY
+ * REPRESENTATION OR WARRANTY OF ANY KIND CONCERNING THE MERCHANTABILITY
+ * OF THIS SOFTWARE OR ITS FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+
+/*
+ * New functions have been added by Quatja
+ * Permission to use, copy, modify, and distribute this software for any
+ * purpose without fee is hereby granted, provided that this entire notice
+ * is included in all copies of any software which is or includes a copy
+ * or modification of this software and in all copies of the supporting
+ * documentation for such software.
+ * THIS SOFTWARE IS BEING PROVIDED "AS IS", WITHOUT ANY EXPRESS OR IMPLIED
+ * WARRANTY.  IN PARTICULAR, NEITHER THE AUTHORS NOR AT&T MAKE ANY
+ * REPRESENTATION OR WARRANTY OF ANY KIND CONCERNING THE MERCHANTABILITY
+ * OF THIS SOFTWARE OR ITS FITNESS FOR ANY PARTICULAR PURPOSE.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+public class Voronoi
+{
+    /**
+     * Vertex events are kept in hash buckets over the y range of the sites. This is the default.
+     * Use with {@link #setEventQueue}
+     */
+    public final static int EVENT_QUEUE_HASH = 1;
+    /**
+     * Vertex events are kept in a 4-ary heap, insert and delete are O(log n) whatever the input.
+     * Use with {@link #setEventQueue}
+     */
+    public final static int EVENT_QUEUE_HEAP = 2;
+
+    /**
+     * The beach line is searched through hash buckets over the x range of the sites and a walk
+     * along its half-edges. This is the default.
+     * Use with {@link #setBeachLine}
+     */
+    public final static int BEACH_LINE_HASH = 1;
+    /**
+     * The beach line is kept in a balanced (AVL) tree, the search for a new site is O(log n)
+     * whatever the input.
+     * Use with {@link #setBeachLine}
+     */
+    public final static int BEACH_LINE_TREE = 2;
+
+    /**
+     * Site count from which {@link #getCentroids} splits the sites between the worker threads
+     */
+    final static int PARALLEL_CENTROID_THRESHOLD = 1 << 12;
+    /**
+     * Site count from which {@link #getRegions} builds the regions on the worker threads
+     */
+    final static int PARALLEL_REGIONS_THRESHOLD = 1 << 11;
+    /**
+     * Site count from which {@link #generateVoronoi} builds the diagram in parallel strips, if
+     * enabled with {@link #setParallelGeneration}
+     */
+    final static int PARALLEL_GENERATION_THRESHOLD = 1 << 17;
+
+    // ************* Private members ******************
+    private double borderMinX;
+    private double borderMaxX;
+    private double borderMinY;
+    private double borderMaxY;
+    private double[] boundaryX;
+    private double[] boundaryY;
+
+    private int siteidx;
+
+    private double xmin;
+    private double ymin;
+
+    private double deltax;
+    private double deltay;
+
+    private int nvertices;
+    private int nedges;
+    private int nsites;
+
+    private Site[] sites;
+    private Site bottomsite;
+
+    private int sqrt_nsites;
+
+    private int PQcount;
+    private int PQmin;
+    private int PQhashsize;
+
+    private Halfedge PQhash[];
+
+    private int eventQueue = EVENT_QUEUE_HASH;
+    private EventHeap eventHeap;
+
+    private final static int LE = 0;
+    private final static int RE = 1;
+
+    private int ELhashsize;
+    private Halfedge ELhash[];
+    private Halfedge ELleftend, ELrightend;
+
+    private int beachLine = BEACH_LINE_HASH;
+    private Halfedge ELroot;
+
+    private boolean parallelGeneration;
+    // strips of the parallel generation, 0 picks them from the cores. Set by the tests so the strips
+    // run on any machine and at any site count
+    int stripCount;
+    private Site[] siteIndex;
+
+    // clipped diagram edges: x1, y1, x2, y2 of the edge n are at edgeCoords[4 * n] and
+    // the sites it separates are at edgeSites[2 * n]
+    private double[] edgeCoords;
+    private int[] edgeSites;
+    private int edgeCount;
+
+    // Delaunay triangles, the site indices of the triangle n are at triangles[3 * n]
+    private int[] triangles;
+    private int triangleCount;
+
+    // topology of the clipped diagram, built on the first call which needs it
+    private HalfEdgeDiagram halfEdges;
+    private boolean halfEdgesBuilt;
+    private double[] siteX;
+    private double[] siteY;
+    private int[] siteOwners;
+
+    private PhaseTimes phaseTimes;
+
+    // object arenas, the first *PoolSize objects of each are in use by the current diagram
+    private boolean reuseWorkspace;
+    private Site[] sitePool;
+    private int sitePoolSize;
+    private Halfedge[] halfedgePool;
+    private int halfedgePoolSize;
+    private Edge[] edgePool;
+    private int edgePoolSize;
+    private SiteSorter sorter = new SiteSorter();
+    private final Point pqMinPoint = new Point();
+
+    /*********************************************************
+     * Public methods
+     ********************************************************/
+
+    public Voronoi()
+    {
+        siteidx = 0;
+        sites = null;
+
+        edgeCoords = null;
+        edgeSites = null;
+    }
+
+    /**
+     * @deprecated The minimum distance isn't used any more, the regions of every two neighbouring
+     * sites are separated by their edge. Use {@link #Voronoi()}.
+     */
+    @Deprecated
+    public Voronoi(double minDistanceBetweenSites)
+    {
+        this();
+    }
+
+    /**
+     * 
+     * @param xValuesIn Array of X values for each site.
+     * @param yValuesIn Array of Y values for each site. Must be identical length to yValuesIn
+     * @param minX The minimum X of the bounding box around the voronoi
+     * @param maxX The maximum X of the bounding box around the voronoi
+     * @param minY The minimum Y of the bounding box around the voronoi
+     * @param maxY The maximum Y of the bounding box around the voronoi
+     */
+    public void generateVoronoi(double[] xValuesIn, double[] yValuesIn, double minX, double maxX, double minY, double maxY)
+    {
+        if (xValuesIn.length == 0) {
+            // an empty diagram, the regions of the last one mustn't come back
+            sites = null;
+            siteIndex = null;
+            nsites = 0;
+            edgeCount = 0;
+            triangleCount = 0;
+            halfEdgesBuilt = false;
+            return;
+        }
+
+        long start = phaseTimes != null ? System.nanoTime() : 0;
+
+        if (!reuseWorkspace)
+            releaseWorkspace();
+        siteIndex = null;
+        halfEdgesBuilt = false;
+        resetWorkspace(xValuesIn.length);
+
+        sort(xValuesIn, yValuesIn, xValuesIn.length);
+
+        borderMinX = minX;
+        borderMinY = minY;
+        borderMaxX = maxX;
+        borderMaxY = maxY;
+
+        siteidx = 0;
+
+        boolean strips = parallelGeneration && (stripCount > 0
+                || nsites >= PARALLEL_GENERATION_THRESHOLD && Workers.parallelism() > 1);
+
+        if (phaseTimes == null) {
+            if (strips)
+                generateStrips(xValuesIn, yValuesIn);
+            else
+                generate();
+            return;
+        }
+
+        long sorted = System.nanoTime();
+        long clip = phaseTimes.clip;
+        if (strips)
+            generateStrips(xValuesIn, yValuesIn);
+        else
+            generate();
+        phaseTimes.sort += sorted - start;
+        phaseTimes.sweep += System.nanoTime() - sorted - (phaseTimes.clip - clip);
+    }
+
+    /**
+     * Enables the parallel generation of big diagrams. From {@link #PARALLEL_GENERATION_THRESHOLD}
+     * sites, and if there is more than one core, the sites are split into vertical strips whose
+     * diagrams are built on the worker threads and stitched together. The edges and the regions
+     * are the same as the sequential ones, the Delaunay triangles ({@link #getTriangles}) aren't
+     * produced in this mode.
+     *
+     * @param enabled True if big diagrams should be built in parallel, false otherwise.
+     */
+    public void setParallelGeneration(boolean enabled) {
+        this.parallelGeneration = enabled;
+    }
+
+    /**
+     * Sets a convex polygon the regions are clipped to, on top of the bounding box passed to
+     * {@link #generateVoronoi}. Regions of the sites outside of it can be empty.
+     *
+     * @param xValues X of the polygon vertices in any winding order, or null to clip to the bounding box only
+     * @param yValues Y of the polygon vertices
+     */
+    public void setBoundary(double[] xValues, double[] yValues) {
+        halfEdgesBuilt = false;
+        if (xValues == null) {
+            boundaryX = null;
+            boundaryY = null;
+            return;
+        }
+        ConvexClipper.checkPolygon(xValues, yValues);
+        boundaryX = xValues.clone();
+        boundaryY = yValues.clone();
+    }
+
+    /**
+     * Enables the collection of per-phase timings. The times of every following
+     * {@link #generateVoronoi} and {@link #getRegions} call are added to <code>times</code>.
+     *
+     * @param times the timings accumulator or null to disable the collection
+     */
+    public void setPhaseTimes(PhaseTimes times) {
+        this.phaseTimes = times;
+    }
+
+    /**
+     * Enables the workspace reuse. The engine then keeps its sites, half-edges, edges and work
+     * arrays after {@link #generateVoronoi} and resets them for the next call instead of allocating
+     * new ones, so regenerating diagrams of a similar size doesn't produce garbage.
+     * The workspace grows to the biggest diagram generated, use {@link #releaseWorkspace} to free it.
+     *
+     * @param reuse True if the workspace should be kept between calls, false otherwise.
+     */
+    public void setReuseWorkspace(boolean reuse) {
+        this.reuseWorkspace = reuse;
+    }
+
+    /**
+     * Sets the vertex event queue implementation.
+     *
+     * @param type queue type. One of {@link #EVENT_QUEUE_HASH} or {@link #EVENT_QUEUE_HEAP}.
+     */
+    public void setEventQueue(int type) {
+        if (type != EVENT_QUEUE_HASH && type != EVENT_QUEUE_HEAP)
+            throw new IllegalArgumentException("Unknown event queue type: " + type);
+        this.eventQueue = type;
+    }
+
+    /**
+     * Return the vertex event queue implementation
+     *
+     * @return event queue type
+     */
+    public int getEventQueue() {
+        return this.eventQueue;
+    }
+
+    /**
+     * Sets the beach line implementation.
+     *
+     * @param type beach line type. One of {@link #BEACH_LINE_HASH} or {@link #BEACH_LINE_TREE}.
+     */
+    public void setBeachLine(int type) {
+        if (type != BEACH_LINE_HASH && type != BEACH_LINE_TREE)
+            throw new IllegalArgumentException("Unknown beach line type: " + type);
+        this.beachLine = type;
+    }
+
+    /**
+     * Return the beach line implementation
+     *
+     * @return beach line type
+     */
+    public int getBeachLine() {
+        return this.beachLine;
+    }
+
+    /**
+     * Drops the workspace kept by {@link #setReuseWorkspace}. The next {@link #generateVoronoi}
+     * call allocates a new one.
+     */
+    public void releaseWorkspace() {
+        sitePool = null;
+        halfedgePool = null;
+        edgePool = null;
+        sites = null;
+        PQhash = null;
+        eventHeap = null;
+        ELhash = null;
+        edgeCoords = null;
+        edgeSites = null;
+        triangles = null;
+        halfEdges = null;
+        halfEdgesBuilt = false;
+        siteX = null;
+        siteY = null;
+        siteOwners = null;
+        sorter = new SiteSorter();
+    }
+
+
+    /**
+     * Return the number of triangles of the Delaunay triangulation of the last generated diagram
+     *
+     * @return triangle count
+     */
+    public int getTriangleCount() {
+        return triangleCount;
+    }
+
+    /**
+     * Returns the Delaunay triangulation of the sites of the last generated diagram, the dual of
+     * the diagram, built during the same sweep. Every three entries are the indices of the sites
+     * of one triangle in the order they were passed to {@link #generateVoronoi}, counter-clockwise
+     * when the y axis points up.
+     *
+     * @return site indices, 3 * {@link #getTriangleCount()} entries
+     */
+    public int[] getTriangles() {
+        if (triangles == null)
+            return new int[0];
+        return Arrays.copyOf(triangles, 3 * triangleCount);
+    }
+
+    /**
+     * Computes the centroid of every region of the last generated diagram, in the order the sites
+     * were passed to {@link #generateVoronoi}. Big diagrams are split into site ranges which are
+     * processed in parallel.
+     *
+     * @param centroidX receives the X of each centroid
+     * @param centroidY receives the Y of each centroid
+     */
+    public void getCentroids(double[] centroidX, double[] centroidY) {
+        if (sites == null)
+            return;
+
+        // built here, the workers only read it
+        getHalfEdgeDiagram();
+
+        if (nsites >= PARALLEL_CENTROID_THRESHOLD && Workers.parallelism() > 1) {
+            int leaf = Math.max(PARALLEL_CENTROID_THRESHOLD / 4, nsites / (4 * Workers.parallelism()));
+            Workers.pool().invoke(new CentroidTask(0, nsites, leaf, centroidX, centroidY));
+        } else {
+            computeCentroids(0, nsites, centroidX, centroidY);
+        }
+    }
+
+    private void computeCentroids(int from, int to, double[] centroidX, double[] centroidY) {
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+
+        for (int s = from; s < to; s++) {
+            Site site = sites[s];
+            int index = site.sitenbr;
+
+            int count = halfEdges.regionSize(index);
+            if (xs.length < count) {
+                xs = new double[2 * count];
+                ys = new double[2 * count];
+            }
+            halfEdges.regionPolygon(index, xs, ys);
+
+            centroidX[index] = site.coord.x;
+            centroidY[index] = site.coord.y;
+
+            double area = 0, cx = 0, cy = 0;
+            for (int i = 0; i < count; i++) {
+                int j = i + 1 == count ? 0 : i + 1;
+                double cross = xs[i] * ys[j] - xs[j] * ys[i];
+                area += cross;
+                cx += (xs[i] + xs[j]) * cross;
+                cy += (ys[i] + ys[j]) * cross;
+            }
+            if (area != 0) {
+                centroidX[index] = cx / (3 * area);
+                centroidY[index] = cy / (3 * area);
+            }
+        }
+    }
+
+    public List<VoronoiRegion> getRegions() {
+        long start = phaseTimes != null ? System.nanoTime() : 0;
+
+        if (sites == null)
+            return new ArrayList<>();
+
+        // built here, the workers only read it
+        getHalfEdgeDiagram();
+
+        VoronoiRegion[] built = new VoronoiRegion[nsites];
+        if (nsites >= PARALLEL_REGIONS_THRESHOLD && Workers.parallelism() > 1) {
+            int leaf = Math.max(PARALLEL_REGIONS_THRESHOLD / 4, nsites / (4 * Workers.parallelism()));
+            Workers.pool().invoke(new RegionTask(0, nsites, leaf, built));
+        } else {
+            buildRegions(0, nsites, built);
+        }
+        List<VoronoiRegion> regions = new ArrayList<>(Arrays.asList(built));
+
+        if (phaseTimes != null)
+            phaseTimes.regions += System.nanoTime() - start;
+
+        return regions;
+    }
+
+    /**
+     * Writes the regions of the last generated diagram into a compact diagram, in the same order
+     * as {@link #getRegions()}. The arrays of the compact diagram are reused, so refilling the
+     * same one doesn't allocate once it is big enough.
+     *
+     * @param diagram receives the regions, its previous content is replaced
+     */
+    public void getRegions(CompactDiagram diagram) {
+        long start = phaseTimes != null ? System.nanoTime() : 0;
+
+        if (sites == null) {
+            diagram.setRegionCount(0);
+            return;
+        }
+
+        getHalfEdgeDiagram();
+
+        // the sizes first, so every region has its place and they can be written in any order
+        diagram.setRegionCount(nsites);
+        for (int i = 0; i < nsites; i++) {
+            diagram.offsets[i + 1] = diagram.offsets[i] + halfEdges.regionSize(sites[i].sitenbr);
+        }
+        diagram.ensurePointCapacity(diagram.offsets[nsites]);
+
+        if (nsites >= PARALLEL_REGIONS_THRESHOLD && Workers.parallelism() > 1) {
+            int leaf = Math.max(PARALLEL_REGIONS_THRESHOLD / 4, nsites / (4 * Workers.parallelism()));
+            Workers.pool().invoke(new CompactRegionTask(0, nsites, leaf, diagram));
+        } else {
+            writeRegions(0, nsites, diagram);
+        }
+
+        if (phaseTimes != null)
+            phaseTimes.regions += System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the doubly-connected edge list of the last generated diagram, clipped to the bounding
+     * box and to the boundary polygon ({@link #setBoundary}). The regions are walked from it.
+     * It is built on the first call after the generation. With the workspace reuse
+     * ({@link #setReuseWorkspace}) the next generation overwrites it.
+     *
+     * @return the half-edge diagram or null if no diagram was generated
+     */
+    public HalfEdgeDiagram getHalfEdgeDiagram() {
+        if (sites == null)
+            return null;
+        if (halfEdgesBuilt)
+            return halfEdges;
+
+        if (siteX == null || siteX.length < nsites) {
+            siteX = new double[nsites];
+            siteY = new double[nsites];
+            siteOwners = new int[nsites];
+        }
+        // coincident sites are next to each other in the sort order
+        for (int i = 0; i < nsites; i++) {
+            Site site = sites[i];
+            siteX[site.sitenbr] = site.coord.x;
+            siteY[site.sitenbr] = site.coord.y;
+            boolean coincident = i > 0 && sites[i - 1].coord.x == site.coord.x && sites[i - 1].coord.y == site.coord.y;
+            siteOwners[site.sitenbr] = coincident ? siteOwners[sites[i - 1].sitenbr] : site.sitenbr;
+        }
+
+        // the bounding box, cut by the boundary polygon if there is one
+        ConvexClipper boundary = new ConvexClipper();
+        boundary.setRect(borderMinX, borderMaxX, borderMinY, borderMaxY);
+        if (boundaryX != null)
+            boundary.clipPolygon(boundaryX, boundaryY, boundaryX.length);
+
+        if (halfEdges == null || !reuseWorkspace)
+            halfEdges = new HalfEdgeDiagram();
+        halfEdges.build(nsites, siteX, siteY, siteOwners, edgeCoords, edgeSites, edgeCount,
+                boundary.xs, boundary.ys, boundary.count, boundaryX != null);
+        halfEdgesBuilt = true;
+        return halfEdges;
+    }
+
+
+    /* regions of the sorted sites from .. to, walked from the half-edge diagram */
+    private void buildRegions(int from, int to, VoronoiRegion[] regions) {
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+
+        for (int i = from; i < to; i++) {
+            Site site = sites[i];
+            VoronoiRegion region = new VoronoiRegion();
+            region.site = new VoronoiRegion.VoronoiPoint(site.coord.x, site.coord.y);
+            region.screen_width = borderMaxX;
+            region.screen_height = borderMaxY;
+
+            int count = halfEdges.regionSize(site.sitenbr);
+            if (xs.length < count) {
+                xs = new double[2 * count];
+                ys = new double[2 * count];
+            }
+            halfEdges.regionPolygon(site.sitenbr, xs, ys);
+            region.setPolygon(xs, ys, count);
+            regions[i] = region;
+        }
+    }
+
+    /* the same, written into the compact diagram at the offsets of the regions */
+    private void writeRegions(int from, int to, CompactDiagram diagram) {
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+
+        for (int i = from; i < to; i++) {
+            Site site = sites[i];
+            int count = diagram.offsets[i + 1] - diagram.offsets[i];
+            if (xs.length < count) {
+                xs = new double[2 * count];
+                ys = new double[2 * count];
+            }
+            halfEdges.regionPolygon(site.sitenbr, xs, ys);
+            diagram.writeRegion(i, site.coord.x, site.coord.y, xs, ys, count);
+        }
+    }
+
+
+    
+     /*********************************************************
+     * Private methods - implementation details
+     ********************************************************/
+
+    private void resetWorkspace(int count)
+    {
+        int sqrt = (int) Math.sqrt((double) count + 4);
+
+        // every site event adds two half-edges and every vertex event one, there are at most 2n vertices
+        if (sitePool == null)
+            sitePool = new Site[3 * count + 16];
+        if (halfedgePool == null)
+            halfedgePool = new Halfedge[4 * count + 4 * sqrt + 16];
+        if (edgePool == null)
+            edgePool = new Edge[3 * count + 16];
+
+        sitePoolSize = 0;
+        halfedgePoolSize = 0;
+        edgePoolSize = 0;
+    }
+
+    private Site newSite()
+    {
+        if (sitePoolSize == sitePool.length)
+        {
+            sitePool = Arrays.copyOf(sitePool, sitePool.length * 2);
+        }
+        Site site = sitePool[sitePoolSize];
+        if (site == null)
+        {
+            site = new Site();
+            sitePool[sitePoolSize] = site;
+        }
+        sitePoolSize++;
+
+        site.sitenbr = 0;
+        return site;
+    }
+
+    private Halfedge newHalfedge()
+    {
+        if (halfedgePoolSize == halfedgePool.length)
+        {
+            halfedgePool = Arrays.copyOf(halfedgePool, halfedgePool.length * 2);
+        }
+        Halfedge he = halfedgePool[halfedgePoolSize];
+        if (he == null)
+        {
+            he = new Halfedge();
+            he.poolIndex = halfedgePoolSize;
+            halfedgePool[halfedgePoolSize] = he;
+        }
+        halfedgePoolSize++;
+
+        he.ELleft = null;
+        he.ELright = null;
+        he.ELedge = null;
+        he.deleted = false;
+        he.ELpm = 0;
+        he.vertex = null;
+        he.ystar = 0;
+        he.PQnext = null;
+        he.ELparent = null;
+        he.ELlchild = null;
+        he.ELrchild = null;
+        he.ELheight = 0;
+        return he;
+    }
+
+    private Edge newEdge()
+    {
+        if (edgePoolSize == edgePool.length)
+        {
+            edgePool = Arrays.copyOf(edgePool, edgePool.length * 2);
+        }
+        Edge edge = edgePool[edgePoolSize];
+        if (edge == null)
+        {
+            edge = new Edge();
+            edgePool[edgePoolSize] = edge;
+        }
+        edgePoolSize++;
+
+        edge.a = 0;
+        edge.b = 0;
+        edge.c = 0;
+        edge.ep[0] = null;
+        edge.ep[1] = null;
+        edge.reg[0] = null;
+        edge.reg[1] = null;
+        edge.edgenbr = 0;
+        return edge;
+    }
+
+    private void sort(double[] xValuesIn, double[] yValuesIn, int count)
+    {
+        // a diagram of n sites has at most 3n - 6 edges
+        edgeCount = 0;
+        int edgeCapacity = 3 * count + 4;
+        if (edgeSites == null || edgeSites.length < 2 * edgeCapacity)
+        {
+            edgeCoords = new double[4 * edgeCapacity];
+            edgeSites = new int[2 * edgeCapacity];
+        }
+
+        // and at most 2n - 5 triangles
+        triangleCount = 0;
+        if (triangles == null || triangles.length < 3 * (2 * count))
+        {
+            triangles = new int[3 * (2 * count)];
+        }
+
+        nsites = count;
+        nvertices = 0;
+        nedges = 0;
+
+        double sn = (double) nsites + 4;
+        sqrt_nsites = (int) Math.sqrt(sn);
+
+        // the inputs are only read, so they are used as they are
+        sortNode(xValuesIn, yValuesIn, count);
+    }
+
+    private void sortNode(double xValues[], double yValues[], int numPoints)
+    {
+        int i;
+        nsites = numPoints;
+        if (sites == null || sites.length != nsites)
+            sites = new Site[nsites];
+        xmin = xValues[0];
+        ymin = yValues[0];
+        double xmax = xValues[0];
+        double ymax = yValues[0];
+        for (i = 0; i < nsites; i++)
+        {
+            if (xValues[i] < xmin)
+            {
+                xmin = xValues[i];
+            } else if (xValues[i] > xmax)
+            {
+                xmax = xValues[i];
+            }
+
+            if (yValues[i] < ymin)
+            {
+                ymin = yValues[i];
+            } else if (yValues[i] > ymax)
+            {
+                ymax = yValues[i];
+            }
+        }
+
+        sorter.sort(xValues, yValues, nsites);
+        int[] order = sorter.order;
+        for (i = 0; i < nsites; i++)
+        {
+            int index = order[i];
+            sites[i] = newSite();
+            sites[i].coord.setPoint(xValues[index], yValues[index]);
+            sites[i].sitenbr = index;
+        }
+
+        deltay = ymax - ymin;
+        deltax = xmax - xmin;
+    }
+
+    /* return a single in-storage site */
+    private Site nextone()
+    {
+        Site s;
+        // a site at the same point as the previous one gets no edges, it shares the region of the first
+        while (siteidx > 0 && siteidx < nsites && sites[siteidx].coord.x == sites[siteidx - 1].coord.x
+                && sites[siteidx].coord.y == sites[siteidx - 1].coord.y)
+        {
+            siteidx += 1;
+        }
+        if (siteidx < nsites)
+        {
+            s = sites[siteidx];
+            siteidx += 1;
+            return (s);
+        } else
+        {
+            return (null);
+        }
+    }
+
+    private Edge bisect(Site s1, Site s2)
+    {
+        double dx;
+        double dy;
+        double adx;
+        double ady;
+        Edge newedge;
+
+        newedge = newEdge();
+
+        // store the sites that this edge is bisecting
+        newedge.reg[0] = s1;
+        newedge.reg[1] = s2;
+        // to begin with, there are no endpoints on the bisector - it goes to
+        // infinity
+        newedge.ep[0] = null;
+        newedge.ep[1] = null;
+
+        // get the difference in x dist between the sites
+        dx = s2.coord.x - s1.coord.x;
+        dy = s2.coord.y - s1.coord.y;
+        // make sure that the difference in positive
+        adx = dx > 0 ? dx : -dx;
+        ady = dy > 0 ? dy : -dy;
+        newedge.c = (double) (s1.coord.x * dx + s1.coord.y * dy + (dx * dx + dy
+                * dy) * 0.5);// get the slope of the line
+
+        if (adx > ady)
+        {
+            newedge.a = 1.0f;
+            newedge.b = dy / dx;
+            newedge.c /= dx;// set formula of line, with x fixed to 1
+        } else
+        {
+            newedge.b = 1.0f;
+            newedge.a = dx / dy;
+            newedge.c /= dy;// set formula of line, with y fixed to 1
+        }
+
+        newedge.edgenbr = nedges;
+
+        nedges += 1;
+        return (newedge);
+    }
+
+    private void makevertex(Site v)
+    {
+        v.sitenbr = nvertices;
+        nvertices += 1;
+    }
+
+    private boolean pqInitialize()
+    {
+        PQcount = 0;
+        PQmin = 0;
+
+        if (eventQueue == EVENT_QUEUE_HEAP)
+        {
+            if (eventHeap == null)
+            {
+                eventHeap = new EventHeap();
+            }
+            eventHeap.clear(halfedgePool.length);
+            return true;
+        }
+
+        PQhashsize = 4 * sqrt_nsites;
+        if (PQhash == null || PQhash.length < PQhashsize)
+        {
+            PQhash = new Halfedge[PQhashsize];
+        }
+
+        for (int i = 0; i < PQhashsize; i += 1)
+        {
+            PQhash[i] = newHalfedge();
+        }
+        return true;
+    }
+
+    private int pqBucket(Halfedge he)
+    {
+        int bucket;
+
+        bucket = (int) ((he.ystar - ymin) / deltay * PQhashsize);
+        if (bucket < 0)
+        {
+            bucket = 0;
+        }
+        if (bucket >= PQhashsize)
+        {
+            bucket = PQhashsize - 1;
+        }
+        if (bucket < PQmin)
+        {
+            PQmin = bucket;
+        }
+        return (bucket);
+    }
+
+    // push the HalfEdge into the ordered linked list of vertices
+    private void pqInsert(Halfedge he, Site v, double offset)
+    {
+        Halfedge last, next;
+
+        he.vertex = v;
+        he.ystar = (double) (v.coord.y + offset);
+        if (eventQueue == EVENT_QUEUE_HEAP)
+        {
+            eventHeap.insert(he.poolIndex, he.ystar, v.coord.x);
+            PQcount += 1;
+            return;
+        }
+
+        last = PQhash[pqBucket(he)];
+        while ((next = last.PQnext) != null
+                && (he.ystar > next.ystar || (he.ystar == next.ystar && v.coord.x > next.vertex.coord.x)))
+        {
+            last = next;
+        }
+        he.PQnext = last.PQnext;
+        last.PQnext = he;
+        PQcount += 1;
+    }
+
+    // remove the HalfEdge from the list of vertices
+    private void pqDelete(Halfedge he)
+    {
+        Halfedge last;
+
+        if (he.vertex != null)
+        {
+            if (eventQueue == EVENT_QUEUE_HEAP)
+            {
+                if (eventHeap.contains(he.poolIndex))
+                {
+                    eventHeap.remove(he.poolIndex);
+                    PQcount -= 1;
+                }
+            } else
+            {
+                last = PQhash[pqBucket(he)];
+                while (last.PQnext != he)
+                {
+                    last = last.PQnext;
+                }
+
+                last.PQnext = he.PQnext;
+                PQcount -= 1;
+            }
+            he.vertex = null;
+        }
+    }
+
+    private boolean pqEmpty()
+    {
+        return (PQcount == 0);
+    }
+
+    private Point pqMin()
+    {
+        Point answer = pqMinPoint;
+
+        if (eventQueue == EVENT_QUEUE_HEAP)
+        {
+            answer.x = eventHeap.peekX();
+            answer.y = eventHeap.peekY();
+            return (answer);
+        }
+
+        while (PQhash[PQmin].PQnext == null)
+        {
+            PQmin += 1;
+        }
+        answer.x = PQhash[PQmin].PQnext.vertex.coord.x;
+        answer.y = PQhash[PQmin].PQnext.ystar;
+        return (answer);
+    }
+
+    private Halfedge pqExtractmin()
+    {
+        Halfedge curr;
+
+        if (eventQueue == EVENT_QUEUE_HEAP)
+        {
+            curr = halfedgePool[eventHeap.poll()];
+            PQcount -= 1;
+            return (curr);
+        }
+
+        curr = PQhash[PQmin].PQnext;
+        PQhash[PQmin].PQnext = curr.PQnext;
+        PQcount -= 1;
+        return (curr);
+    }
+
+    private Halfedge heCreate(Edge e, int pm)
+    {
+        Halfedge answer;
+        answer = newHalfedge();
+        answer.ELedge = e;
+        answer.ELpm = pm;
+        answer.PQnext = null;
+        answer.vertex = null;
+        return (answer);
+    }
+
+    private boolean elInitialize()
+    {
+        int i;
+        ELroot = null;
+        if (beachLine == BEACH_LINE_TREE)
+        {
+            ELleftend = heCreate(null, 0);
+            ELrightend = heCreate(null, 0);
+            ELleftend.ELright = ELrightend;
+            ELrightend.ELleft = ELleftend;
+            return true;
+        }
+
+        ELhashsize = 2 * sqrt_nsites;
+        if (ELhash == null || ELhash.length < ELhashsize)
+        {
+            ELhash = new Halfedge[ELhashsize];
+        }
+
+        for (i = 0; i < ELhashsize; i += 1)
+        {
+            ELhash[i] = null;
+        }
+        ELleftend = heCreate(null, 0);
+        ELrightend = heCreate(null, 0);
+        ELleftend.ELleft = null;
+        ELleftend.ELright = ELrightend;
+        ELrightend.ELleft = ELleftend;
+        ELrightend.ELright = null;
+        ELhash[0] = ELleftend;
+        ELhash[ELhashsize - 1] = ELrightend;
+
+        return true;
+    }
+
+    private Halfedge elRight(Halfedge he)
+    {
+        return (he.ELright);
+    }
+
+    private Halfedge elLeft(Halfedge he)
+    {
+        return (he.ELleft);
+    }
+
+    private Site leftreg(Halfedge he)
+    {
+        if (he.ELedge == null)
+        {
+            return (bottomsite);
+        }
+        return (he.ELpm == LE ? he.ELedge.reg[LE] : he.ELedge.reg[RE]);
+    }
+
+    private void elInsert(Halfedge lb, Halfedge newHe)
+    {
+        newHe.ELleft = lb;
+        newHe.ELright = lb.ELright;
+        (lb.ELright).ELleft = newHe;
+        lb.ELright = newHe;
+
+        if (beachLine == BEACH_LINE_TREE)
+        {
+            elTreeInsertAfter(lb, newHe);
+        }
+    }
+
+    /*
+     * This delete routine can't reclaim node, since pointers from hash table
+     * may be present.
+     */
+    private void elDelete(Halfedge he)
+    {
+        (he.ELleft).ELright = he.ELright;
+        (he.ELright).ELleft = he.ELleft;
+        he.deleted = true;
+
+        if (beachLine == BEACH_LINE_TREE)
+        {
+            elTreeDelete(he);
+        }
+    }
+
+    /* Get entry from hash table, pruning any deleted nodes */
+    private Halfedge elGethash(int b)
+    {
+        Halfedge he;
+
+        if (b < 0 || b >= ELhashsize)
+        {
+            return (null);
+        }
+        he = ELhash[b];
+        if (he == null || !he.deleted)
+        {
+            return (he);
+        }
+
+        /* Hash table points to deleted half edge. Patch as necessary. */
+        ELhash[b] = null;
+        return (null);
+    }
+
+    private Halfedge elLeftbnd(Point p)
+    {
+        int i, bucket;
+        Halfedge he;
+
+        if (beachLine == BEACH_LINE_TREE)
+        {
+            return elTreeLeftbnd(p);
+        }
+
+        /* Use hash table to get close to desired halfedge */
+        // use the hash function to find the place in the hash map that this
+        // HalfEdge should be
+        bucket = (int) ((p.x - xmin) / deltax * ELhashsize);
+
+        // make sure that the bucket position in within the range of the hash
+        // array
+        if (bucket < 0)
+        {
+            bucket = 0;
+        }
+        if (bucket >= ELhashsize)
+        {
+            bucket = ELhashsize - 1;
+        }
+
+        he = elGethash(bucket);
+        if (he == null)
+        // if the HE isn't found, search backwards and forwards in the hash map
+        // for the first non-null entry
+        {
+            for (i = 1; i < ELhashsize; i += 1)
+            {
+                if ((he = elGethash(bucket - i)) != null)
+                {
+                    break;
+                }
+                if ((he = elGethash(bucket + i)) != null)
+                {
+                    break;
+                }
+            }
+        }
+        /* Now search linear list of halfedges for the correct one */
+        if (he == ELleftend || (he != ELrightend && rightOf(he, p)))
+        {
+            // keep going right on the list until either the end is reached, or
+            // you find the 1st edge which the point isn't to the right of
+            do
+            {
+                he = he.ELright;
+            } while (he != ELrightend && rightOf(he, p));
+            he = he.ELleft;
+        } else
+        // if the point is to the left of the HalfEdge, then search left for
+        // the HE just to the left of the point
+        {
+            do
+            {
+                he = he.ELleft;
+            } while (he != ELleftend && !rightOf(he, p));
+        }
+
+        /* Update hash table and reference counts */
+        if (bucket > 0 && bucket < ELhashsize - 1)
+        {
+            ELhash[bucket] = he;
+        }
+        return (he);
+    }
+
+    /*
+     * Beach line tree. The half-edges between ELleftend and ELrightend are also kept in an AVL
+     * tree in their beach line order. rightOf() is true for a prefix of the beach line, so the
+     * left boundary of a point is found by a single descent.
+     */
+
+    private Halfedge elTreeLeftbnd(Point p)
+    {
+        Halfedge he = ELleftend;
+        Halfedge node = ELroot;
+        while (node != null)
+        {
+            if (rightOf(node, p))
+            {
+                he = node;
+                node = node.ELrchild;
+            } else
+            {
+                node = node.ELlchild;
+            }
+        }
+        return (he);
+    }
+
+    private void elTreeInsertAfter(Halfedge lb, Halfedge he)
+    {
+        he.ELheight = 1;
+        if (ELroot == null)
+        {
+            ELroot = he;
+            return;
+        }
+
+        Halfedge parent;
+        if (lb == ELleftend)
+        {
+            // becomes the leftmost node
+            parent = ELroot;
+            while (parent.ELlchild != null)
+            {
+                parent = parent.ELlchild;
+            }
+            parent.ELlchild = he;
+        } else if (lb.ELrchild == null)
+        {
+            parent = lb;
+            parent.ELrchild = he;
+        } else
+        {
+            parent = lb.ELrchild;
+            while (parent.ELlchild != null)
+            {
+                parent = parent.ELlchild;
+            }
+            parent.ELlchild = he;
+        }
+        he.ELparent = parent;
+
+        elTreeRebalance(parent);
+    }
+
+    private void elTreeDelete(Halfedge he)
+    {
+        if (he.ELlchild != null && he.ELrchild != null)
+        {
+            // move the successor into this place, then he has at most one child
+            Halfedge successor = he.ELrchild;
+            while (successor.ELlchild != null)
+            {
+                successor = successor.ELlchild;
+            }
+            elTreeSwap(he, successor);
+        }
+
+        Halfedge child = he.ELlchild != null ? he.ELlchild : he.ELrchild;
+        Halfedge parent = he.ELparent;
+        elTreeReplace(parent, he, child);
+        if (child != null)
+        {
+            child.ELparent = parent;
+        }
+
+        he.ELparent = null;
+        he.ELlchild = null;
+        he.ELrchild = null;
+        he.ELheight = 0;
+
+        elTreeRebalance(parent);
+    }
+
+    /* swaps the tree positions of he and its successor s, which has no left child */
+    private void elTreeSwap(Halfedge he, Halfedge s)
+    {
+        Halfedge parent = he.ELparent;
+        Halfedge left = he.ELlchild;
+        Halfedge right = he.ELrchild;
+        int height = he.ELheight;
+
+        Halfedge sParent = s.ELparent;
+        Halfedge sRight = s.ELrchild;
+
+        elTreeReplace(parent, he, s);
+        s.ELparent = parent;
+        s.ELlchild = left;
+        left.ELparent = s;
+        s.ELheight = height;
+
+        if (right == s)
+        {
+            s.ELrchild = he;
+            he.ELparent = s;
+        } else
+        {
+            s.ELrchild = right;
+            right.ELparent = s;
+            sParent.ELlchild = he;
+            he.ELparent = sParent;
+        }
+
+        he.ELlchild = null;
+        he.ELrchild = sRight;
+        if (sRight != null)
+        {
+            sRight.ELparent = he;
+        }
+    }
+
+    private void elTreeReplace(Halfedge parent, Halfedge node, Halfedge replacement)
+    {
+        if (parent == null)
+        {
+            ELroot = replacement;
+        } else if (parent.ELlchild == node)
+        {
+            parent.ELlchild = replacement;
+        } else
+        {
+            parent.ELrchild = replacement;
+        }
+    }
+
+    private void elTreeRebalance(Halfedge node)
+    {
+        while (node != null)
+        {
+            elTreeUpdateHeight(node);
+            int balance = elTreeHeight(node.ELlchild) - elTreeHeight(node.ELrchild);
+
+            if (balance > 1)
+            {
+                if (elTreeHeight(node.ELlchild.ELlchild) < elTreeHeight(node.ELlchild.ELrchild))
+                {
+                    elTreeRotateLeft(node.ELlchild);
+                }
+                node = elTreeRotateRight(node);
+            } else if (balance < -1)
+            {
+                if (elTreeHeight(node.ELrchild.ELrchild) < elTreeHeight(node.ELrchild.ELlchild))
+                {
+                    elTreeRotateRight(node.ELrchild);
+                }
+                node = elTreeRotateLeft(node);
+            }
+            node = node.ELparent;
+        }
+    }
+
+    private Halfedge elTreeRotateLeft(Halfedge node)
+    {
+        Halfedge pivot = node.ELrchild;
+        node.ELrchild = pivot.ELlchild;
+        if (pivot.ELlchild != null)
+        {
+            pivot.ELlchild.ELparent = node;
+        }
+        pivot.ELparent = node.ELparent;
+        elTreeReplace(node.ELparent, node, pivot);
+        pivot.ELlchild = node;
+        node.ELparent = pivot;
+
+        elTreeUpdateHeight(node);
+        elTreeUpdateHeight(pivot);
+        return pivot;
+    }
+
+    private Halfedge elTreeRotateRight(Halfedge node)
+    {
+        Halfedge pivot = node.ELlchild;
+        node.ELlchild = pivot.ELrchild;
+        if (pivot.ELrchild != null)
+        {
+            pivot.ELrchild.ELparent = node;
+        }
+        pivot.ELparent = node.ELparent;
+        elTreeReplace(node.ELparent, node, pivot);
+        pivot.ELrchild = node;
+        node.ELparent = pivot;
+
+        elTreeUpdateHeight(node);
+        elTreeUpdateHeight(pivot);
+        return pivot;
+    }
+
+    private int elTreeHeight(Halfedge node)
+    {
+        return node == null ? 0 : node.ELheight;
+    }
+
+    private void elTreeUpdateHeight(Halfedge node)
+    {
+        node.ELheight = 1 + Math.max(elTreeHeight(node.ELlchild), elTreeHeight(node.ELrchild));
+    }
+
+    /*
+     * Parallel generation. Every strip builds the diagram of its sites and of the sites within a
+     * halo around it with its own engine. Leaving sites out only grows the regions, so an edge of
+     * the strip diagram is an edge of the whole diagram when no left out site can be closer to
+     * its points than its two sites. The circles around the ends of an edge through its sites
+     * cover the circles of all its points, so it is enough that these two circles don't reach
+     * past the halo. The strip keeps the edges whose middle is inside it and checks every edge
+     * that touches it, together with the strip corners, so everything it keeps is exact. If the
+     * check fails, the strip is built again with a doubled halo.
+     */
+
+    private void generateStrips(double[] xValues, double[] yValues)
+    {
+        int strips = stripCount > 0 ? stripCount : Math.min(4 * Workers.parallelism(), nsites / 1024);
+
+        // sites by x, the strips are ranges of this order
+        SiteSorter byX = new SiteSorter();
+        byX.sort(yValues, xValues, nsites);
+        int[] order = byX.order;
+
+        double[] cuts = new double[strips + 1];
+        cuts[0] = Double.NEGATIVE_INFINITY;
+        cuts[strips] = Double.POSITIVE_INFINITY;
+        for (int i = 1; i < strips; i++)
+        {
+            cuts[i] = xValues[order[(int) ((long) i * nsites / strips)]];
+        }
+
+        double halo = 4 * Math.sqrt(Math.max(deltax * deltay, 1) / nsites);
+        StripTask[] tasks = new StripTask[strips];
+        for (int i = 0; i < strips; i++)
+        {
+            tasks[i] = new StripTask(xValues, yValues, order, cuts[i], cuts[i + 1], halo);
+        }
+        Workers.pool().invoke(new StripsTask(tasks));
+
+        for (StripTask task : tasks)
+        {
+            for (int i = 0; i < task.edgeCount; i++)
+            {
+                pushGraphEdge(task.edgeSites[2 * i], task.edgeSites[2 * i + 1], task.edgeCoords[4 * i],
+                        task.edgeCoords[4 * i + 1], task.edgeCoords[4 * i + 2], task.edgeCoords[4 * i + 3]);
+            }
+        }
+    }
+
+    private class StripsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final StripTask[] tasks;
+
+        StripsTask(StripTask[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    private class StripTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] xValues, yValues;
+        private final int[] order;
+        private final double left, right;
+        private double halo;
+
+        // the kept edges, their sites are the global indices
+        double[] edgeCoords;
+        int[] edgeSites;
+        int edgeCount;
+
+        StripTask(double[] xValues, double[] yValues, int[] order, double left, double right, double halo) {
+            this.xValues = xValues;
+            this.yValues = yValues;
+            this.order = order;
+            this.left = left;
+            this.right = right;
+            this.halo = halo;
+        }
+
+        @Override
+        protected void compute() {
+            while (true) {
+                double from = left - halo;
+                double to = right + halo;
+                int first = lowerBound(from);
+                int last = upperBound(to);
+                int count = last - first;
+
+                double[] x = new double[count];
+                double[] y = new double[count];
+                for (int i = 0; i < count; i++) {
+                    x[i] = xValues[order[first + i]];
+                    y[i] = yValues[order[first + i]];
+                }
+
+                Voronoi strip = new Voronoi();
+                strip.eventQueue = eventQueue;
+                strip.beachLine = beachLine;
+                strip.generateVoronoi(x, y, borderMinX, borderMaxX, borderMinY, borderMaxY);
+
+                // all the sites are in, nothing to check
+                if (count == nsites || strip.isExact(left, right, from, to)) {
+                    keep(strip, first);
+                    return;
+                }
+                halo *= 2;
+            }
+        }
+
+        private void keep(Voronoi strip, int first) {
+            edgeCoords = new double[4 * strip.edgeCount];
+            edgeSites = new int[2 * strip.edgeCount];
+            for (int i = 0; i < strip.edgeCount; i++) {
+                double middle = (strip.edgeCoords[4 * i] + strip.edgeCoords[4 * i + 2]) / 2;
+                if (middle < left || middle >= right)
+                    continue;
+
+                System.arraycopy(strip.edgeCoords, 4 * i, edgeCoords, 4 * edgeCount, 4);
+                edgeSites[2 * edgeCount] = order[first + strip.edgeSites[2 * i]];
+                edgeSites[2 * edgeCount + 1] = order[first + strip.edgeSites[2 * i + 1]];
+                edgeCount++;
+            }
+        }
+
+        private int lowerBound(double x) {
+            int low = 0, high = nsites;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (xValues[order[middle]] < x)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+
+        private int upperBound(double x) {
+            int low = 0, high = nsites;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (xValues[order[middle]] <= x)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+    }
+
+    /*
+     * Checks that no site with x outside [from, to] can change the part of this diagram which is
+     * between left and right.
+     */
+    private boolean isExact(double left, double right, double from, double to)
+    {
+        double stripLeft = Math.max(left, borderMinX);
+        double stripRight = Math.min(right, borderMaxX);
+
+        for (int i = 0; i < edgeCount; i++)
+        {
+            int edge = 4 * i;
+            double x1 = edgeCoords[edge];
+            double x2 = edgeCoords[edge + 2];
+            if (Math.max(x1, x2) < stripLeft || Math.min(x1, x2) > stripRight)
+                continue;
+
+            Site site = siteByIndex(edgeSites[2 * i]);
+            if (!isCovered(x1, edgeCoords[edge + 1], site, from, to) || !isCovered(x2, edgeCoords[edge + 3], site, from, to))
+                return false;
+        }
+
+        // strip corners, in case a region covers a whole side
+        if (stripLeft <= stripRight)
+        {
+            if (!isCovered(stripLeft, borderMinY, from, to) || !isCovered(stripLeft, borderMaxY, from, to)
+                    || !isCovered(stripRight, borderMinY, from, to) || !isCovered(stripRight, borderMaxY, from, to))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isCovered(double x, double y, double from, double to)
+    {
+        Site nearest = sites[0];
+        double min_dist = Double.MAX_VALUE;
+        for (Site site : sites)
+        {
+            double dx = site.coord.x - x;
+            double dy = site.coord.y - y;
+            double dist = dx * dx + dy * dy;
+            if (dist < min_dist)
+            {
+                min_dist = dist;
+                nearest = site;
+            }
+        }
+        return isCovered(x, y, nearest, from, to);
+    }
+
+    /* the circle around (x, y) through the site doesn't reach past from and to */
+    private boolean isCovered(double x, double y, Site site, double from, double to)
+    {
+        double dx = site.coord.x - x;
+        double dy = site.coord.y - y;
+        double radius = Math.sqrt(dx * dx + dy * dy);
+        return x - radius > from && x + radius < to;
+    }
+
+    private Site siteByIndex(int index)
+    {
+        if (siteIndex == null)
+        {
+            siteIndex = new Site[nsites];
+            for (Site site : sites)
+            {
+                siteIndex[site.sitenbr] = site;
+            }
+        }
+        return siteIndex[index];
+    }
+
+    private void pushTriangle(Site s1, Site s2, Site s3)
+    {
+        double cross = (s2.coord.x - s1.coord.x) * (s3.coord.y - s1.coord.y)
+                - (s2.coord.y - s1.coord.y) * (s3.coord.x - s1.coord.x);
+        // coincident sites
+        if (cross == 0)
+            return;
+
+        if (3 * triangleCount == triangles.length)
+        {
+            triangles = Arrays.copyOf(triangles, triangles.length * 2);
+        }
+
+        int index = 3 * triangleCount;
+        triangles[index] = s1.sitenbr;
+        if (cross > 0)
+        {
+            triangles[index + 1] = s2.sitenbr;
+            triangles[index + 2] = s3.sitenbr;
+        } else
+        {
+            triangles[index + 1] = s3.sitenbr;
+            triangles[index + 2] = s2.sitenbr;
+        }
+        triangleCount++;
+    }
+
+    private void pushGraphEdge(int leftSite, int rightSite, double x1, double y1, double x2, double y2)
+    {
+        if (edgeCount * 2 == edgeSites.length)
+        {
+            edgeCoords = Arrays.copyOf(edgeCoords, edgeCoords.length * 2);
+            edgeSites = Arrays.copyOf(edgeSites, edgeSites.length * 2);
+        }
+
+        int coord = 4 * edgeCount;
+        edgeCoords[coord] = x1;
+        edgeCoords[coord + 1] = y1;
+        edgeCoords[coord + 2] = x2;
+        edgeCoords[coord + 3] = y2;
+
+        edgeSites[2 * edgeCount] = leftSite;
+        edgeSites[2 * edgeCount + 1] = rightSite;
+        edgeCount++;
+    }
+
+    private void clipLine(Edge e)
+    {
+        Site s1;
+        Site s2;
+
+        double pxmin;
+        double pxmax;
+        double pymin;
+        double pymax;
+
+        double x1;
+        double x2;
+        double y1;
+        double y2;
+
+        x1 = e.reg[0].coord.x;
+        x2 = e.reg[1].coord.x;
+        y1 = e.reg[0].coord.y;
+        y2 = e.reg[1].coord.y;
+
+        pxmin = borderMinX;
+        pxmax = borderMaxX;
+        pymin = borderMinY;
+        pymax = borderMaxY;
+
+        if (e.a == 1.0 && e.b >= 0.0)
+        {
+            s1 = e.ep[1];
+            s2 = e.ep[0];
+        } else
+        {
+            s1 = e.ep[0];
+            s2 = e.ep[1];
+        }
+
+        if (e.a == 1.0)
+        {
+            y1 = pymin;
+            if (s1 != null && s1.coord.y > pymin)
+            {
+                y1 = s1.coord.y;
+            }
+            if (y1 > pymax)
+            {
+                y1 = pymax;
+            }
+            x1 = e.c - e.b * y1;
+            y2 = pymax;
+            if (s2 != null && s2.coord.y < pymax)
+            {
+                y2 = s2.coord.y;
+            }
+
+            if (y2 < pymin)
+            {
+                y2 = pymin;
+            }
+            x2 = (e.c) - (e.b) * y2;
+            if (((x1 > pxmax) & (x2 > pxmax)) | ((x1 < pxmin) & (x2 < pxmin)))
+            {
+                return;
+            }
+            if (x1 > pxmax)
+            {
+                x1 = pxmax;
+                y1 = (e.c - x1) / e.b;
+            }
+            if (x1 < pxmin)
+            {
+                x1 = pxmin;
+                y1 = (e.c - x1) / e.b;
+            }
+            if (x2 > pxmax)
+            {
+                x2 = pxmax;
+                y2 = (e.c - x2) / e.b;
+            }
+            if (x2 < pxmin)
+            {
+                x2 = pxmin;
+                y2 = (e.c - x2) / e.b;
+            }
+        } else
+        {
+            x1 = pxmin;
+            if (s1 != null && s1.coord.x > pxmin)
+            {
+                x1 = s1.coord.x;
+            }
+            if (x1 > pxmax)
+            {
+                x1 = pxmax;
+            }
+            y1 = e.c - e.a * x1;
+            x2 = pxmax;
+            if (s2 != null && s2.coord.x < pxmax)
+            {
+                x2 = s2.coord.x;
+            }
+            if (x2 < pxmin)
+            {
+                x2 = pxmin;
+            }
+            y2 = e.c - e.a * x2;
+            if (((y1 > pymax) & (y2 > pymax)) | ((y1 < pymin) & (y2 < pymin)))
+            {
+                return;
+            }
+            if (y1 > pymax)
+            {
+                y1 = pymax;
+                x1 = (e.c - y1) / e.a;
+            }
+            if (y1 < pymin)
+            {
+                y1 = pymin;
+                x1 = (e.c - y1) / e.a;
+            }
+            if (y2 > pymax)
+            {
+                y2 = pymax;
+                x2 = (e.c - y2) / e.a;
+            }
+            if (y2 < pymin)
+            {
+                y2 = pymin;
+                x2 = (e.c - y2) / e.a;
+            }
+        }
+
+        // the ends inside the border are diagram vertices, every edge of a vertex gets the same point
+        if (s1 != null && s1.coord.x >= pxmin && s1.coord.x <= pxmax && s1.coord.y >= pymin && s1.coord.y <= pymax)
+        {
+            x1 = s1.coord.x;
+            y1 = s1.coord.y;
+        }
+        if (s2 != null && s2.coord.x >= pxmin && s2.coord.x <= pxmax && s2.coord.y >= pymin && s2.coord.y <= pymax)
+        {
+            x2 = s2.coord.x;
+            y2 = s2.coord.y;
+        }
+
+        // edges outside the border end up as a point on it
+        if (x1 == x2 && y1 == y2)
+        {
+            return;
+        }
+
+        pushGraphEdge(e.reg[0].sitenbr, e.reg[1].sitenbr, x1, y1, x2, y2);
+    }
+
+    private void clip(Edge e)
+    {
+        if (phaseTimes == null)
+        {
+            clipLine(e);
+            return;
+        }
+
+        long start = System.nanoTime();
+        clipLine(e);
+        phaseTimes.clip += System.nanoTime() - start;
+    }
+
+    private void endpoint(Edge e, int lr, Site s)
+    {
+        e.ep[lr] = s;
+        if (e.ep[RE - lr] == null)
+        {
+            return;
+        }
+        clip(e);
+    }
+
+    /* returns 1 if p is to right of halfedge e */
+    private boolean rightOf(Halfedge el, Point p)
+    {
+        Edge e;
+        Site topsite;
+
+        boolean right_of_site;
+        boolean above;
+        boolean fast;
+
+        double dxp;
+        double dyp;
+        double dxs;
+        double t1;
+        double t2;
+        double t3;
+        double yl;
+
+        e = el.ELedge;
+        topsite = e.reg[1];
+        if (p.x > topsite.coord.x)
+        {
+            right_of_site = true;
+        } else
+        {
+            right_of_site = false;
+        }
+        if (right_of_site && el.ELpm == LE)
+        {
+            return (true);
+        }
+        if (!right_of_site && el.ELpm == RE)
+        {
+            return (false);
+        }
+
+        if (e.a == 1.0)
+        {
+            dyp = p.y - topsite.coord.y;
+            dxp = p.x - topsite.coord.x;
+            fast = false;
+            if ((!right_of_site & (e.b < 0.0)) | (right_of_site & (e.b >= 0.0)))
+            {
+                above = dyp >= e.b * dxp;
+                fast = above;
+            } else
+            {
+                above = p.x + p.y * e.b > e.c;
+                if (e.b < 0.0)
+                {
+                    above = !above;
+                }
+                if (!above)
+                {
+                    fast = true;
+                }
+            }
+            if (!fast)
+            {
+                dxs = topsite.coord.x - (e.reg[0]).coord.x;
+                above = e.b * (dxp * dxp - dyp * dyp) < dxs * dyp
+                        * (1.0 + 2.0 * dxp / dxs + e.b * e.b);
+                if (e.b < 0.0)
+                {
+                    above = !above;
+                }
+            }
+        } else /* e.b==1.0 */
+
+        {
+            yl = e.c - e.a * p.x;
+            t1 = p.y - yl;
+            t2 = p.x - topsite.coord.x;
+            t3 = yl - topsite.coord.y;
+            above = t1 * t1 > t2 * t2 + t3 * t3;
+        }
+        return (el.ELpm == LE ? above : !above);
+    }
+
+    private Site rightreg(Halfedge he)
+    {
+        if (he.ELedge == (Edge) null)
+        // if this halfedge has no edge, return the bottom site (whatever
+        // that is)
+        {
+            return (bottomsite);
+        }
+
+        // if the ELpm field is zero, return the site 0 that this edge bisects,
+        // otherwise return site number 1
+        return (he.ELpm == LE ? he.ELedge.reg[RE] : he.ELedge.reg[LE]);
+    }
+
+    private double dist(Site s, Site t)
+    {
+        double dx;
+        double dy;
+        dx = s.coord.x - t.coord.x;
+        dy = s.coord.y - t.coord.y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // create a new site where the HalfEdges el1 and el2 intersect - note that
+    // the Point in the argument list is not used, don't know why it's there
+    private Site intersect(Halfedge el1, Halfedge el2)
+    {
+        Edge e1;
+        Edge e2;
+        Edge e;
+
+        Halfedge el;
+
+        double d;
+        double xint;
+        double yint;
+
+        boolean right_of_site;
+
+        Site v;
+
+        e1 = el1.ELedge;
+        e2 = el2.ELedge;
+        if (e1 == null || e2 == null)
+        {
+            return null;
+        }
+
+        // if the two edges bisect the same parent, return null
+        if (e1.reg[1] == e2.reg[1])
+        {
+            return null;
+        }
+
+        d = e1.a * e2.b - e1.b * e2.a;
+        if (-1.0e-10 < d && d < 1.0e-10)
+        {
+            return null;
+        }
+
+        xint = (e1.c * e2.b - e2.c * e1.b) / d;
+        yint = (e2.c * e1.a - e1.c * e2.a) / d;
+
+        if ((e1.reg[1].coord.y < e2.reg[1].coord.y)
+                || (e1.reg[1].coord.y == e2.reg[1].coord.y && e1.reg[1].coord.x < e2.reg[1].coord.x))
+        {
+            el = el1;
+            e = e1;
+        } else
+        {
+            el = el2;
+            e = e2;
+        }
+
+        right_of_site = xint >= e.reg[1].coord.x;
+        if ((right_of_site && el.ELpm == LE)
+                || (!right_of_site && el.ELpm == RE))
+        {
+            return null;
+        }
+
+        // create a new site at the point of intersection - this is a new vector
+        // event waiting to happen
+        v = newSite();
+        v.coord.x = xint;
+        v.coord.y = yint;
+        return (v);
+    }
+
+    /*
+     * implicit parameters: nsites, sqrt_nsites, xmin, xmax, ymin, ymax, deltax,
+     * deltay (can all be estimates). Performance suffers if they are wrong;
+     * better to make nsites, deltax, and deltay too big than too small. (?)
+     */
+    private boolean generate()
+    {
+        Site newsite;
+        Site bot;
+        Site top;
+        Site temp;
+        Site p;
+        Site v;
+
+        Point newintstar = null;
+
+        int pm;
+
+        Halfedge lbnd;
+        Halfedge rbnd;
+        Halfedge llbnd;
+        Halfedge rrbnd;
+        Halfedge bisector;
+
+        Edge e;
+
+        pqInitialize();
+        elInitialize();
+
+        bottomsite = nextone();
+        newsite = nextone();
+        while (true)
+        {
+            if (!pqEmpty())
+            {
+                newintstar = pqMin();
+            }
+            // if the lowest site has a smaller y value than the lowest vector
+            // intersection,
+            // process the site otherwise process the vector intersection
+
+            if (newsite != null && (pqEmpty() || newsite.coord.y < newintstar.y || (newsite.coord.y == newintstar.y && newsite.coord.x < newintstar.x)))
+            {
+                /* new site is smallest -this is a site event */
+                // get the first HalfEdge to the LEFT of the new site
+                lbnd = elLeftbnd((newsite.coord));
+                // get the first HalfEdge to the RIGHT of the new site
+                rbnd = elRight(lbnd);
+                // if this halfedge has no edge,bot =bottom site (whatever that
+                // is)
+                bot = rightreg(lbnd);
+                // create a new edge that bisects
+                e = bisect(bot, newsite);
+
+                // create a new HalfEdge, setting its ELpm field to 0
+                bisector = heCreate(e, LE);
+                // insert this new bisector edge between the left and right
+                // vectors in a linked list
+                elInsert(lbnd, bisector);
+
+                // if the new bisector intersects with the left edge,
+                // remove the left edge's vertex, and put in the new one
+                if ((p = intersect(lbnd, bisector)) != null)
+                {
+                    pqDelete(lbnd);
+                    pqInsert(lbnd, p, dist(p, newsite));
+                }
+                lbnd = bisector;
+                // create a new HalfEdge, setting its ELpm field to 1
+                bisector = heCreate(e, RE);
+                // insert the new HE to the right of the original bisector
+                // earlier in the IF stmt
+                elInsert(lbnd, bisector);
+
+                // if this new bisector intersects with the new HalfEdge
+                if ((p = intersect(bisector, rbnd)) != null)
+                {
+                    // push the HE into the ordered linked list of vertices
+                    pqInsert(bisector, p, dist(p, newsite));
+                }
+                newsite = nextone();
+            } else if (!pqEmpty())
+            /* intersection is smallest - this is a vector event */
+            {
+                // pop the HalfEdge with the lowest vector off the ordered list
+                // of vectors
+                lbnd = pqExtractmin();
+                // get the HalfEdge to the left of the above HE
+                llbnd = elLeft(lbnd);
+                // get the HalfEdge to the right of the above HE
+                rbnd = elRight(lbnd);
+                // get the HalfEdge to the right of the HE to the right of the
+                // lowest HE
+                rrbnd = elRight(rbnd);
+                // get the Site to the left of the left HE which it bisects
+                bot = leftreg(lbnd);
+                // get the Site to the right of the right HE which it bisects
+                top = rightreg(rbnd);
+
+                v = lbnd.vertex; // get the vertex that caused this event
+                makevertex(v); // set the vertex number - couldn't do this
+                // earlier since we didn't know when it would be processed
+                // the three sites around the vertex are a Delaunay triangle
+                pushTriangle(bot, rightreg(lbnd), top);
+                endpoint(lbnd.ELedge, lbnd.ELpm, v);
+                // set the endpoint of
+                // the left HalfEdge to be this vector
+                endpoint(rbnd.ELedge, rbnd.ELpm, v);
+                // set the endpoint of the right HalfEdge to
+                // be this vector
+                elDelete(lbnd); // mark the lowest HE for
+                // deletion - can't delete yet because there might be pointers
+                // to it in Hash Map
+                pqDelete(rbnd);
+                // remove all vertex events to do with the right HE
+                elDelete(rbnd); // mark the right HE for
+                // deletion - can't delete yet because there might be pointers
+                // to it in Hash Map
+                pm = LE; // set the pm variable to zero
+
+                if (bot.coord.y > top.coord.y)
+                // if the site to the left of the event is higher than the
+                // Site
+                { // to the right of it, then swap them and set the 'pm'
+                    // variable to 1
+                    temp = bot;
+                    bot = top;
+                    top = temp;
+                    pm = RE;
+                }
+                e = bisect(bot, top); // create an Edge (or line)
+                // that is between the two Sites. This creates the formula of
+                // the line, and assigns a line number to it
+                bisector = heCreate(e, pm); // create a HE from the Edge 'e',
+                // and make it point to that edge
+                // with its ELedge field
+                elInsert(llbnd, bisector); // insert the new bisector to the
+                // right of the left HE
+                endpoint(e, RE - pm, v); // set one endpoint to the new edge
+                // to be the vector point 'v'.
+                // If the site to the left of this bisector is higher than the
+                // right Site, then this endpoint
+                // is put in position 0; otherwise in pos 1
+
+                // if left HE and the new bisector intersect, then delete
+                // the left HE, and reinsert it
+                if ((p = intersect(llbnd, bisector)) != null)
+                {
+                    pqDelete(llbnd);
+                    pqInsert(llbnd, p, dist(p, bot));
+                }
+
+                // if right HE and the new bisector intersect, then
+                // reinsert it
+                if ((p = intersect(bisector, rrbnd)) != null)
+                {
+                    pqInsert(bisector, p, dist(p, bot));
+                }
+            } else
+            {
+                break;
+            }
+        }
+
+        for (lbnd = elRight(ELleftend); lbnd != ELrightend; lbnd = elRight(lbnd))
+        {
+            e = lbnd.ELedge;
+            clip(e);
+        }
+
+        return true;
+    }
+
+
+
+
+
+    /**
+     * Accumulated wall time of the engine phases, in nanoseconds.
+     *
+     * @see #setPhaseTimes
+     */
+    public static class PhaseTimes {
+        /** Site copying and sorting */
+        public long sort;
+        /** Fortune sweep, without clipping */
+        public long sweep;
+        /** Clipping of the finished edges to the bounding box */
+        public long clip;
+        /** Region assembly */
+        public long regions;
+
+        public void reset() {
+            sort = 0;
+            sweep = 0;
+            clip = 0;
+            regions = 0;
+        }
+    }
+
+
+    private class RegionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to, leaf;
+        private final VoronoiRegion[] regions;
+
+        RegionTask(int from, int to, int leaf, VoronoiRegion[] regions) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.regions = regions;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leaf) {
+                buildRegions(from, to, regions);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new RegionTask(from, middle, leaf, regions), new RegionTask(middle, to, leaf, regions));
+        }
+    }
+
+    private class CompactRegionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to, leaf;
+        private final CompactDiagram diagram;
+
+        CompactRegionTask(int from, int to, int leaf, CompactDiagram diagram) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.diagram = diagram;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leaf) {
+                writeRegions(from, to, diagram);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new CompactRegionTask(from, middle, leaf, diagram), new CompactRegionTask(middle, to, leaf, diagram));
+        }
+    }
+
+    private class CentroidTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to, leaf;
+        private final double[] centroidX, centroidY;
+
+        CentroidTask(int from, int to, int leaf, double[] centroidX, double[] centroidY) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.centroidX = centroidX;
+            this.centroidY = centroidY;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leaf) {
+                computeCentroids(from, to, centroidX, centroidY);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new CentroidTask(from, middle, leaf, centroidX, centroidY),
+                    new CentroidTask(middle, to, leaf, centroidX, centroidY));
+        }
+    }
+
+    private static class Site {
+        Point coord;
+        int sitenbr;
+
+        Site()
+        {
+            coord = new Point();
+        }
+    }
+
+
+    private static class Point {
+        double x, y;
+
+        Point()
+        {
+        }
+
+        public Point(double x, double y)
+        {
+            this.x = x;
+            this.y = y;
+        }
+
+        void setPoint(double x, double y)
+        {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Point))
+                return false;
+            Point point2 = (Point) obj;
+            return point2.x == this.x && point2.y == this.y;
+        }
+
+        @Override
+        public String toString() {
+            return x + ", " + y;
+        }
+    }
+
+    static private class Halfedge
+    {
+        Halfedge ELleft;
+        Halfedge ELright;
+        Edge ELedge;
+        boolean deleted;
+        int ELpm;
+        Site vertex;
+        double ystar;
+        Halfedge PQnext;
+        int poolIndex;
+
+        // beach line tree links
+        Halfedge ELparent;
+        Halfedge ELlchild;
+        Halfedge ELrchild;
+        int ELheight;
+
+        Halfedge()
+        {
+            PQnext = null;
+        }
+    }
+
+    static private class Edge
+    {
+        double a = 0;
+        double b = 0;
+        double c = 0;
+
+        Site[] ep;  // JH: End points?
+        Site[] reg; // JH: Sites this edge bisects?
+        int edgenbr;
+
+        Edge()
+        {
+            ep = new Site[2];
+            reg = new Site[2];
+        }
+    }
+}
@@ -1,14 +1,9 @@
 package quatja.com.vorolay.diagram;
 
 
-import android.graphics.Path;
-import android.graphics.RectF;
-
 import java.util.ArrayList;
 import java.util.List;
 
-import quatja.com.vorolay.GrahamScan;
-
 /**
  *
  * Voronoi region allows to work with each diagram element
@@ -16,21 +11,37 @@ import quatja.com.vorolay.GrahamScan;
  * Created by quatja
  */
 public class VoronoiRegion {
-    List<VoronoiLine> edges = new ArrayList<>();
     VoronoiPoint site;
     public int tag;
     double screen_width, screen_height;
 
     private List<VoronoiPoint> points = new ArrayList<>();
-    public Path path;
 
     public double width, height;
     public VoronoiPoint center_rect;
 
-    void prepare() {
+    private double minX, maxX, minY, maxY;
+
+    /*
+     * Sets the region polygon, a convex polygon in order. A region outside the boundary has no
+     * points and is centered at its site.
+     */
+    void setPolygon(double[] xs, double[] ys, int count) {
+        if (count == 0) {
+            points = new ArrayList<>();
+            minX = maxX = site.x;
+            minY = maxY = site.y;
+            width = 0;
+            height = 0;
+            prepareCenter();
+            return;
+        }
 
-        initPoints();
-        initPath();
+        points = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            points.add(new VoronoiPoint(xs[i], ys[i]));
+        }
+        points.add(new VoronoiPoint(xs[0], ys[0]));
 
         prepareWidth();
         prepareHeight();
@@ -39,37 +50,27 @@ public class VoronoiRegion {
     }
 
 
+    /**
+     * Returns the diagram site of the region
+     *
+     * @return the site
+     */
+    public VoronoiPoint getSite() {
+        return site;
+    }
 
-
-    private void initPoints() {
-        for (VoronoiLine edge : edges) {
-            VoronoiPoint point = new VoronoiPoint(edge.x1, edge.y1);
-            VoronoiPoint point2 = new VoronoiPoint(edge.x2, edge.y2);
-
-            if (!points.contains(point))
-                points.add(point);
-            if (!points.contains(point2))
-                points.add(point2);
-        }
-
-        // Sort
-        points = GrahamScan.getConvexHull(points);
+    /**
+     * Returns the region polygon vertices in order. The first and the last point are the same.
+     * The list is empty if the region is outside the boundary.
+     *
+     * @return the region polygon
+     */
+    public List<VoronoiPoint> getPoints() {
+        return points;
     }
 
-    private void initPath() {
-        path = new Path();
 
-        for (int i = 0; i < points.size(); i++) {
-            VoronoiPoint point = points.get(i);
-            if (i == 0) {
-                path.moveTo((float)point.x, (float)point.y);
-                continue;
-            }
-            path.lineTo((float)point.x, (float)point.y);
-        }
 
-        path.close();
-    }
 
     private void prepareWidth() {
         double min = points.get(0).x;
@@ -84,6 +85,8 @@ public class VoronoiRegion {
 
         }
 
+        minX = min;
+        maxX = max;
         width = max - min;
     }
 
@@ -100,13 +103,13 @@ public class VoronoiRegion {
 
         }
 
+        minY = min;
+        maxY = max;
         height = max - min;
     }
 
     private void prepareCenter() {
-        RectF mRectF = new RectF();
-        path.computeBounds(mRectF, true);
-        center_rect = new VoronoiPoint(mRectF.centerX(), mRectF.centerY());
+        center_rect = new VoronoiPoint((minX + maxX) / 2, (minY + maxY) / 2);
     }
 
     public boolean contains(float x, float y) {
@@ -125,22 +128,6 @@ public class VoronoiRegion {
 
 
 
-    static class VoronoiLine {
-        int x1, x2, y1, y2;
-
-        VoronoiLine(int x1, int x2, int y1, int y2) {
-            this.x1 = x1;
-            this.x2 = x2;
-            this.y1 = y1;
-            this.y2 = y2;
-        }
-
-        @Override
-        public String toString() {
-            return x1 + ", " + y1 + ";  " + x2 + ", " + y2;
-        }
-    }
-
     static public class VoronoiPoint {
         public double x, y;
 
@@ -0,0 +1,48 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds the fork-join pool shared by the parallel parts of the engine.
+ * The pool is created on first use, its threads are daemons.
+ *
+ * Android has the fork-join classes from API 21 on, below it the parallelism is 1 and the engine
+ * never asks for the pool.
+ *
+ * Created by quatja
+ */
+final class Workers {
+
+    private static final boolean AVAILABLE = isAvailable();
+
+    private static ForkJoinPool pool;
+
+    // set by the tests so the parallel paths run on any machine, 0 takes the core count
+    static int forcedParallelism;
+
+    private Workers() {}
+
+    static int parallelism() {
+        if (!AVAILABLE)
+            return 1;
+        return forcedParallelism > 0 ? forcedParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Only called when {@link #parallelism()} is above 1
+     */
+    static synchronized ForkJoinPool pool() {
+        if (pool == null)
+            pool = new ForkJoinPool(parallelism());
+        return pool;
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("java.util.concurrent.ForkJoinPool");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
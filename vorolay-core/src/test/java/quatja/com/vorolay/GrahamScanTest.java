@@ -0,0 +1,121 @@
+package quatja.com.vorolay;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import quatja.com.vorolay.diagram.VoronoiRegion.VoronoiPoint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The primitive hulls on degenerate input, and on random input against the list hull.
+ *
+ * Created by quatja
+ */
+public class GrahamScanTest {
+
+    @Test
+    public void noPoints() {
+        assertEquals(0, GrahamScan.getConvexHull(new double[0], 0, new double[2]));
+        assertEquals(0, GrahamScan.getConvexHull(new float[0], 0, new float[2]));
+    }
+
+    @Test
+    public void coincidentPoints() {
+        double[] hull = new double[8];
+        assertEquals(1, GrahamScan.getConvexHull(new double[]{3, 4, 3, 4, 3, 4}, 3, hull));
+        assertEquals(3, hull[0], 0);
+        assertEquals(4, hull[1], 0);
+    }
+
+    @Test
+    public void twoPoints() {
+        double[] hull = new double[6];
+        assertEquals(2, GrahamScan.getConvexHull(new double[]{5, 1, 2, 7}, 2, hull));
+        assertArrayEquals(new double[]{2, 7, 5, 1}, Arrays.copyOf(hull, 4), 0);
+    }
+
+    @Test
+    public void collinearPoints() {
+        double[] points = {4, 4, 0, 0, 2, 2, 1, 1, 3, 3, 2, 2};
+        double[] hull = new double[2 * 6 + 2];
+        assertEquals(2, GrahamScan.getConvexHull(points, 6, hull));
+        assertArrayEquals(new double[]{0, 0, 4, 4}, Arrays.copyOf(hull, 4), 0);
+
+        float[] floatHull = new float[2 * 6 + 2];
+        assertEquals(2, GrahamScan.getConvexHull(new float[]{4, 4, 0, 0, 2, 2, 1, 1, 3, 3, 2, 2}, 6, floatHull));
+        assertArrayEquals(new float[]{0, 0, 4, 4}, Arrays.copyOf(floatHull, 4), 0);
+    }
+
+    @Test
+    public void pointsOnTheSides() {
+        // the corners of a square, points on its sides, a repeated corner and the center
+        double[] points = {0, 0, 2, 0, 4, 0, 4, 2, 4, 4, 2, 4, 0, 4, 0, 2, 2, 2, 4, 4};
+        double[] hull = new double[2 * 10 + 2];
+        assertEquals(4, GrahamScan.getConvexHull(points, 10, hull));
+        assertArrayEquals(new double[]{0, 0, 4, 0, 4, 4, 0, 4}, Arrays.copyOf(hull, 8), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void smallHull() {
+        GrahamScan.getConvexHull(new double[]{0, 0, 1, 0, 0, 1}, 3, new double[7]);
+    }
+
+    @Test
+    public void randomPoints() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 50; trial++) {
+            int count = 3 + random.nextInt(200);
+            double[] points = new double[2 * count];
+            float[] floatPoints = new float[2 * count];
+            List<VoronoiPoint> list = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                // integers, so the three hulls compute the same turns
+                int x = random.nextInt(100), y = random.nextInt(100);
+                points[2 * i] = floatPoints[2 * i] = x;
+                points[2 * i + 1] = floatPoints[2 * i + 1] = y;
+                list.add(new VoronoiPoint(x, y));
+            }
+
+            double[] hull = new double[2 * count + 2];
+            int hullCount = GrahamScan.getConvexHull(points, count, hull);
+            float[] floatHull = new float[2 * count + 2];
+            assertEquals(hullCount, GrahamScan.getConvexHull(floatPoints, count, floatHull));
+            for (int i = 0; i < 2 * hullCount; i++) {
+                assertEquals(hull[i], floatHull[i], 0);
+            }
+
+            // the list hull keeps the points on the sides, it has the corners of the primitive one
+            List<VoronoiPoint> expected;
+            try {
+                expected = GrahamScan.getConvexHull(list);
+            } catch (IllegalArgumentException e) {
+                assertTrue(hullCount < 3);
+                continue;
+            }
+            for (int i = 0; i < hullCount; i++) {
+                assertTrue(expected.contains(new VoronoiPoint(hull[2 * i], hull[2 * i + 1])));
+            }
+            for (VoronoiPoint point : list) {
+                assertTrue(contains(hull, hullCount, point.x, point.y));
+            }
+        }
+    }
+
+    /* inside the counter-clockwise hull or on its sides */
+    private static boolean contains(double[] hull, int count, double x, double y) {
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            double cross = (hull[2 * i] - hull[2 * j]) * (y - hull[2 * j + 1])
+                    - (hull[2 * i + 1] - hull[2 * j + 1]) * (x - hull[2 * j]);
+            if (cross < 0)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package quatja.com.vorolay;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The sampled points keep the minimum distance and stay in the area.
+ *
+ * Created by quatja
+ */
+public class PoissonDiskSamplerTest {
+
+    @Test
+    public void minimumDistance() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 20; trial++) {
+            double width = 200 + random.nextInt(800), height = 200 + random.nextInt(800);
+            double distance = 5 + random.nextInt(20);
+            int n = 50 + random.nextInt(500);
+
+            double[] x = new double[n], y = new double[n];
+            int count = new PoissonDiskSampler(width, height, distance, random).sample(x, y, n);
+            assertSpacing(x, y, count, distance);
+            for (int i = 0; i < count; i++) {
+                assertTrue(x[i] >= 0 && x[i] <= width && y[i] >= 0 && y[i] <= height);
+            }
+        }
+    }
+
+    @Test
+    public void requestedCount() {
+        // a few hundred points fit easily at this distance
+        double[] x = new double[300], y = new double[300];
+        int count = new PoissonDiskSampler(1000, 1000, 10, new Random(2)).sample(x, y, 300);
+        assertEquals(300, count);
+    }
+
+    @Test
+    public void crowdedArea() {
+        // at most about 100 x 100 / 10^2 points fit, fewer are returned than asked for
+        double[] x = new double[5000], y = new double[5000];
+        int count = new PoissonDiskSampler(100, 100, 10, new Random(3)).sample(x, y, 5000);
+        assertTrue(count > 0 && count < 5000);
+        assertSpacing(x, y, count, 10);
+    }
+
+    @Test
+    public void boundary() {
+        // a triangle over half of the area
+        double[] boundaryX = {0, 400, 0}, boundaryY = {0, 0, 400};
+        Random random = new Random(4);
+        for (int trial = 0; trial < 10; trial++) {
+            PoissonDiskSampler sampler = new PoissonDiskSampler(400, 400, 8, random);
+            sampler.setBoundary(boundaryX, boundaryY);
+
+            double[] x = new double[500], y = new double[500];
+            int count = sampler.sample(x, y, 500);
+            assertEquals(500, count);
+            assertSpacing(x, y, count, 8);
+            for (int i = 0; i < count; i++) {
+                assertTrue("(" + x[i] + ", " + y[i] + ") outside the boundary", x[i] + y[i] <= 400);
+            }
+        }
+    }
+
+    @Test
+    public void boundaryOutsideTheArea() {
+        PoissonDiskSampler sampler = new PoissonDiskSampler(100, 100, 5, new Random(5));
+        sampler.setBoundary(new double[]{200, 300, 300}, new double[]{200, 200, 300});
+        assertEquals(0, sampler.sample(new double[10], new double[10], 10));
+    }
+
+    private static void assertSpacing(double[] x, double[] y, int count, double distance) {
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                assertTrue("points " + i + " and " + j + " too close",
+                        Math.hypot(x[i] - x[j], y[i] - y[j]) >= distance);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package quatja.com.vorolay.diagram;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static quatja.com.vorolay.diagram.DiagramChecks.assertSameRegions;
+import static quatja.com.vorolay.diagram.DiagramChecks.assertTiles;
+import static quatja.com.vorolay.diagram.DiagramChecks.contains;
+import static quatja.com.vorolay.diagram.DiagramChecks.integerSites;
+import static quatja.com.vorolay.diagram.DiagramChecks.randomSites;
+
+/**
+ * The compact diagram holds the regions of the region list, in floats, and its own queries agree
+ * with them.
+ *
+ * Created by quatja
+ */
+public class CompactDiagramTest {
+
+    // float coordinates of a diagram a thousand units big
+    private static final double TOLERANCE = 1e-3;
+
+    @Test
+    public void sameRegions() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 10; trial++) {
+            double[][] sites = trial % 2 == 0 ? randomSites(random, 2000, 1000, 700) : integerSites(random, 2000, 1000, 700);
+            Voronoi voronoi = generate(sites, 1000, 700);
+            CompactDiagram diagram = new CompactDiagram();
+            voronoi.getRegions(diagram);
+
+            List<VoronoiRegion> regions = voronoi.getRegions();
+            assertSameRegions(regions, toRegions(diagram), TOLERANCE);
+            assertTiles(toRegions(diagram), sites[0], sites[1], 1000, 700, 1000 * 700);
+        }
+    }
+
+    @Test
+    public void bounds() {
+        Voronoi voronoi = generate(randomSites(new Random(2), 500, 600, 400), 600, 400);
+        CompactDiagram diagram = new CompactDiagram();
+        voronoi.getRegions(diagram);
+
+        for (int i = 0; i < diagram.getRegionCount(); i++) {
+            for (int j = 0; j < diagram.getPointCount(i); j++) {
+                float x = diagram.getPointX(i, j), y = diagram.getPointY(i, j);
+                assertTrue(x >= diagram.getLeft(i) && x <= diagram.getRight(i));
+                assertTrue(y >= diagram.getTop(i) && y <= diagram.getBottom(i));
+            }
+            assertEquals(diagram.getRight(i) - diagram.getLeft(i), diagram.getWidth(i), 1e-3);
+            assertEquals((diagram.getLeft(i) + diagram.getRight(i)) / 2, diagram.getCenterX(i), 1e-3);
+            assertEquals((diagram.getTop(i) + diagram.getBottom(i)) / 2, diagram.getCenterY(i), 1e-3);
+        }
+    }
+
+    @Test
+    public void findRegion() {
+        Random random = new Random(3);
+        double[][] sites = randomSites(random, 300, 500, 500);
+        Voronoi voronoi = generate(sites, 500, 500);
+        CompactDiagram diagram = new CompactDiagram();
+        voronoi.getRegions(diagram);
+
+        for (int sample = 0; sample < 1000; sample++) {
+            float x = random.nextFloat() * 500, y = random.nextFloat() * 500;
+            int region = diagram.findRegion(x, y);
+            assertTrue(region >= 0);
+
+            // the found site is the nearest one, up to the float rounding of the polygons
+            double found = Math.hypot(diagram.getSiteX(region) - x, diagram.getSiteY(region) - y);
+            for (int i = 0; i < sites[0].length; i++) {
+                assertTrue(found <= Math.hypot(sites[0][i] - x, sites[1][i] - y) + TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void removeRegion() {
+        Voronoi voronoi = generate(randomSites(new Random(4), 200, 400, 400), 400, 400);
+        CompactDiagram diagram = new CompactDiagram();
+        voronoi.getRegions(diagram);
+        List<VoronoiRegion> regions = toRegions(diagram);
+
+        Random random = new Random(5);
+        while (diagram.getRegionCount() > 0) {
+            int index = random.nextInt(diagram.getRegionCount());
+            diagram.removeRegion(index);
+            regions.remove(index);
+            assertSameRegions(regions, toRegions(diagram), 0);
+        }
+    }
+
+    @Test
+    public void inscribedRect() {
+        Random random = new Random(6);
+        float[] rect = new float[4];
+        for (int trial = 0; trial < 5; trial++) {
+            double[][] sites = trial % 2 == 0 ? randomSites(random, 300, 800, 600) : integerSites(random, 300, 800, 600);
+            Voronoi voronoi = generate(sites, 800, 600);
+            CompactDiagram diagram = new CompactDiagram();
+            voronoi.getRegions(diagram);
+
+            List<VoronoiRegion> regions = toRegions(diagram);
+            for (int i = 0; i < diagram.getRegionCount(); i++) {
+                List<VoronoiRegion.VoronoiPoint> polygon = regions.get(i).getPoints();
+                if (!diagram.getInscribedRect(i, rect))
+                    continue;
+
+                assertTrue(rect[0] < rect[2] && rect[1] < rect[3]);
+                for (int corner = 0; corner < 4; corner++) {
+                    float x = rect[corner < 2 ? 0 : 2], y = rect[corner % 2 == 0 ? 1 : 3];
+                    assertTrue("corner (" + x + ", " + y + ") of region " + i,
+                            contains(polygon, x, y, TOLERANCE));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void inscribedRectOfABox() {
+        // a single site owns the whole box, which is its own largest rectangle
+        Voronoi voronoi = generate(new double[][]{{30}, {20}}, 100, 50);
+        CompactDiagram diagram = new CompactDiagram();
+        voronoi.getRegions(diagram);
+
+        float[] rect = new float[4];
+        assertTrue(diagram.getInscribedRect(0, rect));
+        assertEquals(0, rect[0], 1e-3);
+        assertEquals(0, rect[1], 1e-3);
+        assertEquals(100, rect[2], 1e-3);
+        assertEquals(50, rect[3], 1e-3);
+    }
+
+    @Test
+    public void edges() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 9; trial++) {
+            double[][] sites;
+            if (trial % 3 == 0)
+                sites = randomSites(random, 500, 600, 400);
+            else if (trial % 3 == 1)
+                sites = integerSites(random, 500, 600, 400);
+            else
+                // a few hundred sites on a 20 x 20 grid repeat a lot
+                sites = integerSites(random, 300, 20, 20);
+            Voronoi voronoi = generate(sites, trial % 3 == 2 ? 20 : 600, trial % 3 == 2 ? 20 : 400);
+            CompactDiagram diagram = new CompactDiagram();
+            voronoi.getRegions(diagram);
+            assertEdges(diagram);
+
+            // the edges are found again after a change
+            diagram.removeRegion(random.nextInt(diagram.getRegionCount()));
+            diagram.removeRegion(random.nextInt(diagram.getRegionCount()));
+            assertEdges(diagram);
+
+            int region = random.nextInt(diagram.getRegionCount());
+            diagram.setRegion(region, 1, 1, new double[]{0, 2, 1}, new double[]{0, 0, 3}, 3);
+            assertEdges(diagram);
+            diagram.setRegion(diagram.getRegionCount(), 1, 1, new double[]{0, 2, 1}, new double[]{0, 0, 3}, 3);
+            assertEdges(diagram);
+        }
+    }
+
+    @Test
+    public void edgesOfSignedZeros() {
+        // two squares on each side of x = 0, which the left one has as -0
+        CompactDiagram diagram = new CompactDiagram();
+        diagram.setRegion(0, -0.5, 0.5, new double[]{-1, -0.0, -0.0, -1}, new double[]{0, 0, 1, 1}, 4);
+        diagram.setRegion(1, 0.5, 0.5, new double[]{0, 1, 1, 0, 0}, new double[]{0, 0, 1, 1, 1}, 5);
+        assertEdges(diagram);
+        // the common side is listed once, the repeated vertex gives no edge
+        assertEquals(7, diagram.getEdgeCount());
+    }
+
+    /*
+     * The edges are the sides of the region polygons, each once whatever its direction, and
+     * without the sides of length 0
+     */
+    private static void assertEdges(CompactDiagram diagram) {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < diagram.getRegionCount(); i++) {
+            int count = diagram.getPointCount(i);
+            for (int j = 0, k = count - 1; j < count; k = j++) {
+                float ax = diagram.getPointX(i, k), ay = diagram.getPointY(i, k);
+                float bx = diagram.getPointX(i, j), by = diagram.getPointY(i, j);
+                if (ax != bx || ay != by)
+                    expected.add(side(ax, ay, bx, by));
+            }
+        }
+
+        float[] edges = diagram.getEdges();
+        Set<String> actual = new HashSet<>();
+        for (int i = 0; i < diagram.getEdgeCount(); i++) {
+            String side = side(edges[4 * i], edges[4 * i + 1], edges[4 * i + 2], edges[4 * i + 3]);
+            assertTrue("edge " + side + " listed twice", actual.add(side));
+        }
+        assertEquals(expected, actual);
+    }
+
+    /* the same for both directions, and for 0 and -0 */
+    private static String side(float ax, float ay, float bx, float by) {
+        ax += 0f;
+        ay += 0f;
+        bx += 0f;
+        by += 0f;
+        if (ax < bx || (ax == bx && ay < by))
+            return ax + "," + ay + " " + bx + "," + by;
+        return bx + "," + by + " " + ax + "," + ay;
+    }
+
+    private static Voronoi generate(double[][] sites, double width, double height) {
+        Voronoi voronoi = new Voronoi();
+        voronoi.generateVoronoi(sites[0].clone(), sites[1].clone(), 0, width, 0, height);
+        return voronoi;
+    }
+
+    private static List<VoronoiRegion> toRegions(CompactDiagram diagram) {
+        List<VoronoiRegion> regions = new ArrayList<>(diagram.getRegionCount());
+        for (int i = 0; i < diagram.getRegionCount(); i++) {
+            int count = diagram.getPointCount(i);
+            double[] xs = new double[count], ys = new double[count];
+            for (int j = 0; j < count; j++) {
+                xs[j] = diagram.getPointX(i, j);
+                ys[j] = diagram.getPointY(i, j);
+            }
+
+            VoronoiRegion region = new VoronoiRegion();
+            region.site = new VoronoiRegion.VoronoiPoint(diagram.getSiteX(i), diagram.getSiteY(i));
+            region.setPolygon(xs, ys, count);
+            regions.add(region);
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,210 @@
+package quatja.com.vorolay.diagram;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import quatja.com.vorolay.GrahamScan;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static quatja.com.vorolay.diagram.DiagramChecks.area;
+import static quatja.com.vorolay.diagram.DiagramChecks.integerSites;
+import static quatja.com.vorolay.diagram.DiagramChecks.randomSites;
+
+/**
+ * The triangles of the sweep are a Delaunay triangulation of the distinct sites: counter-clockwise,
+ * with no site inside a circumcircle, and covering the convex hull once.
+ *
+ * Created by quatja
+ */
+public class DelaunayTest {
+
+    @Test
+    public void randomInput() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 10; trial++) {
+            double[][] sites = randomSites(random, 500, 800, 500);
+            // the circle test of doubles around 800 is off by about 1e-4
+            assertDelaunay(generate(new Voronoi(), sites), sites[0], sites[1], 1e-3);
+        }
+    }
+
+    @Test
+    public void integerGrid() {
+        // every square of the grid has four sites on one circle
+        int side = 12;
+        double[][] sites = new double[2][side * side];
+        for (int i = 0; i < side * side; i++) {
+            sites[0][i] = 5 * (i % side);
+            sites[1][i] = 5 * (i / side);
+        }
+        assertDelaunay(generate(new Voronoi(), sites), sites[0], sites[1], 0);
+    }
+
+    @Test
+    public void integerInput() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 10; trial++) {
+            double[][] sites = integerSites(random, 300, 100, 100);
+            assertDelaunay(generate(new Voronoi(), sites), sites[0], sites[1], 0);
+        }
+    }
+
+    @Test
+    public void coincidentSites() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 10; trial++) {
+            // a few hundred sites on a 20 x 20 grid repeat a lot
+            double[][] sites = integerSites(random, 300, 20, 20);
+            assertDelaunay(generate(new Voronoi(), sites), sites[0], sites[1], 0);
+        }
+    }
+
+    @Test
+    public void sameTrianglesInEveryMode() {
+        Random random = new Random(4);
+        for (int trial = 0; trial < 6; trial++) {
+            double[][] sites = trial % 2 == 0 ? randomSites(random, 2000, 800, 500) : integerSites(random, 2000, 200, 100);
+            long[] expected = sortedTriangles(generate(new Voronoi(), sites), sites[0].length);
+
+            Voronoi heap = new Voronoi();
+            heap.setEventQueue(Voronoi.EVENT_QUEUE_HEAP);
+            assertArrayEquals(expected, sortedTriangles(generate(heap, sites), sites[0].length));
+
+            Voronoi tree = new Voronoi();
+            tree.setBeachLine(Voronoi.BEACH_LINE_TREE);
+            assertArrayEquals(expected, sortedTriangles(generate(tree, sites), sites[0].length));
+
+            tree.setEventQueue(Voronoi.EVENT_QUEUE_HEAP);
+            assertArrayEquals(expected, sortedTriangles(generate(tree, sites), sites[0].length));
+        }
+    }
+
+    @Test
+    public void noTrianglesFromStrips() {
+        double[][] sites = randomSites(new Random(5), 5000, 1000, 1000);
+        Voronoi voronoi = new Voronoi();
+        assertTrue(generate(voronoi, sites).getTriangleCount() > 0);
+
+        // the triangles of the previous diagram don't stay either
+        voronoi.setParallelGeneration(true);
+        voronoi.stripCount = 4;
+        generate(voronoi, sites);
+        assertEquals(0, voronoi.getTriangleCount());
+        assertEquals(0, voronoi.getTriangles().length);
+    }
+
+    private static Voronoi generate(Voronoi voronoi, double[][] sites) {
+        double maxX = 0, maxY = 0;
+        for (int i = 0; i < sites[0].length; i++) {
+            maxX = Math.max(maxX, sites[0][i]);
+            maxY = Math.max(maxY, sites[1][i]);
+        }
+        voronoi.generateVoronoi(sites[0].clone(), sites[1].clone(), 0, maxX, 0, maxY);
+        return voronoi;
+    }
+
+    /*
+     * Every triangle is counter-clockwise and has no site strictly inside its circumcircle, beyond
+     * the tolerance of the circle test. The triangles cover the hull of the sites once, and there
+     * are 2n - 2 - h of them for n distinct sites with h of them on the hull.
+     */
+    private static void assertDelaunay(Voronoi voronoi, double[] x, double[] y, double tolerance) {
+        int[] triangles = voronoi.getTriangles();
+        assertEquals(3 * voronoi.getTriangleCount(), triangles.length);
+
+        double[] distinct = distinctSites(x, y);
+        int count = distinct.length / 2;
+
+        double total = 0;
+        for (int t = 0; t < triangles.length; t += 3) {
+            int a = triangles[t], b = triangles[t + 1], c = triangles[t + 2];
+            double cross = (x[b] - x[a]) * (y[c] - y[a]) - (y[b] - y[a]) * (x[c] - x[a]);
+            assertTrue("triangle " + a + ", " + b + ", " + c + " isn't counter-clockwise", cross > 0);
+            total += cross / 2;
+
+            for (int i = 0; i < count; i++) {
+                double inCircle = inCircle(x[a], y[a], x[b], y[b], x[c], y[c], distinct[2 * i], distinct[2 * i + 1]);
+                assertTrue("(" + distinct[2 * i] + ", " + distinct[2 * i + 1] + ") in the circle of triangle "
+                        + a + ", " + b + ", " + c, inCircle <= tolerance);
+            }
+        }
+
+        double[] hull = new double[2 * count + 2];
+        int hullCount = GrahamScan.getConvexHull(distinct, count, hull);
+        double[] hullX = new double[hullCount], hullY = new double[hullCount];
+        for (int i = 0; i < hullCount; i++) {
+            hullX[i] = hull[2 * i];
+            hullY[i] = hull[2 * i + 1];
+        }
+        double hullArea = area(hullX, hullY, hullCount);
+        assertEquals("area of the triangles", hullArea, total, 1e-9 * hullArea);
+
+        int onHull = 0;
+        for (int i = 0; i < count; i++) {
+            if (onHull(hullX, hullY, hullCount, distinct[2 * i], distinct[2 * i + 1]))
+                onHull++;
+        }
+        assertEquals(2 * count - 2 - onHull, voronoi.getTriangleCount());
+    }
+
+    /* positive when (px, py) is inside the circle through the counter-clockwise a, b, c */
+    private static double inCircle(double ax, double ay, double bx, double by, double cx, double cy,
+                                   double px, double py) {
+        double adx = ax - px, ady = ay - py;
+        double bdx = bx - px, bdy = by - py;
+        double cdx = cx - px, cdy = cy - py;
+        return (adx * adx + ady * ady) * (bdx * cdy - cdx * bdy)
+                + (bdx * bdx + bdy * bdy) * (cdx * ady - adx * cdy)
+                + (cdx * cdx + cdy * cdy) * (adx * bdy - bdx * ady);
+    }
+
+    /* on a side of the counter-clockwise hull, corners included */
+    private static boolean onHull(double[] hullX, double[] hullY, int count, double x, double y) {
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            double cross = (hullX[i] - hullX[j]) * (y - hullY[j]) - (hullY[i] - hullY[j]) * (x - hullX[j]);
+            if (cross == 0 && x >= Math.min(hullX[i], hullX[j]) && x <= Math.max(hullX[i], hullX[j])
+                    && y >= Math.min(hullY[i], hullY[j]) && y <= Math.max(hullY[i], hullY[j]))
+                return true;
+        }
+        return false;
+    }
+
+    /* the positions of the sites, each once, as x, y pairs */
+    private static double[] distinctSites(double[] x, double[] y) {
+        Set<String> seen = new HashSet<>();
+        double[] points = new double[2 * x.length];
+        int count = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (seen.add(x[i] + "," + y[i])) {
+                points[2 * count] = x[i];
+                points[2 * count + 1] = y[i];
+                count++;
+            }
+        }
+        return Arrays.copyOf(points, 2 * count);
+    }
+
+    /* each triangle starting at its lowest site index, so the order of the triangles doesn't matter */
+    private static long[] sortedTriangles(Voronoi voronoi, int siteCount) {
+        int[] triangles = voronoi.getTriangles();
+        long[] keys = new long[triangles.length / 3];
+        for (int t = 0; t < keys.length; t++) {
+            int a = triangles[3 * t], b = triangles[3 * t + 1], c = triangles[3 * t + 2];
+            while (a > b || a > c) {
+                int first = a;
+                a = b;
+                b = c;
+                c = first;
+            }
+            keys[t] = ((long) a * siteCount + b) * siteCount + c;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+}
@@ -0,0 +1,141 @@
+package quatja.com.vorolay.diagram;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static quatja.com.vorolay.diagram.DiagramChecks.randomSites;
+
+/**
+ * The cache evicts the least recently used diagrams and keeps its size in bytes right.
+ *
+ * Created by quatja
+ */
+public class DiagramCacheTest {
+
+    @Test
+    public void leastRecentlyUsedOrder() {
+        DiagramCache.Key[] keys = new DiagramCache.Key[4];
+        CompactDiagram[] diagrams = new CompactDiagram[4];
+        for (int i = 0; i < 4; i++) {
+            keys[i] = key(i);
+            diagrams[i] = diagram(i);
+        }
+
+        // room for the first three, and for the last one in the place of the second one
+        long[] sizes = new long[4];
+        for (int i = 0; i < 4; i++) {
+            sizes[i] = size(keys[i], diagrams[i]);
+        }
+        DiagramCache cache = new DiagramCache(sizes[0] + sizes[2] + Math.max(sizes[1], sizes[3]));
+        for (int i = 0; i < 3; i++) {
+            cache.put(keys[i], diagrams[i]);
+        }
+        assertTrue(cache.get(keys[0], new CompactDiagram()));
+
+        // the second one is the least recently used now
+        cache.put(keys[3], diagrams[3]);
+        assertEquals(3, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.get(keys[0], new CompactDiagram()));
+        assertFalse(cache.get(keys[1], new CompactDiagram()));
+        assertTrue(cache.get(keys[2], new CompactDiagram()));
+        assertTrue(cache.get(keys[3], new CompactDiagram()));
+        assertEquals(4, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void byteAccounting() {
+        DiagramCache cache = new DiagramCache(Long.MAX_VALUE);
+        long expected = 0;
+        for (int i = 0; i < 5; i++) {
+            cache.put(key(i), diagram(i));
+            expected += size(key(i), diagram(i));
+            assertEquals(expected, cache.getSize());
+        }
+
+        // a diagram put again under the same key replaces the old one
+        cache.put(key(2), diagram(7));
+        expected += size(key(2), diagram(7)) - size(key(2), diagram(2));
+        assertEquals(expected, cache.getSize());
+        assertEquals(5, cache.getEntryCount());
+
+        cache.trimToSize(expected - 1);
+        assertEquals(4, cache.getEntryCount());
+        assertEquals(expected - size(key(0), diagram(0)), cache.getSize());
+
+        cache.clear();
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void tooBig() {
+        DiagramCache cache = new DiagramCache(size(key(0), diagram(0)) - 1);
+        cache.put(key(0), diagram(0));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void copies() {
+        DiagramCache cache = new DiagramCache(Long.MAX_VALUE);
+        CompactDiagram diagram = diagram(0);
+        float x = diagram.getPointX(0, 0);
+        cache.put(key(0), diagram);
+
+        // the cached diagram doesn't see changes of the one put in
+        diagram.removeRegion(0);
+        CompactDiagram cached = new CompactDiagram();
+        assertTrue(cache.get(key(0), cached));
+        assertEquals(diagram.getRegionCount() + 1, cached.getRegionCount());
+        assertEquals(x, cached.getPointX(0, 0), 0);
+    }
+
+    @Test
+    public void keys() {
+        double[] x = {1, 2, 3}, y = {4, 5, 6};
+        DiagramCache.Key key = new DiagramCache.Key(x, y, 0, 10, 0, 10, null, null, 7, 1.5);
+        assertEquals(key, new DiagramCache.Key(x.clone(), y.clone(), 0, 10, 0, 10, null, null, 7, 1.5));
+        assertEquals(key.getHash(), new DiagramCache.Key(x, y, 0, 10, 0, 10, null, null, 7, 1.5).getHash());
+
+        assertNotEquals(key, new DiagramCache.Key(x, y, 0, 10, 0, 10, null, null, 8, 1.5));
+        assertNotEquals(key, new DiagramCache.Key(x, y, 0, 10, 0, 11, null, null, 7, 1.5));
+        assertNotEquals(key, new DiagramCache.Key(x, y, 0, 10, 0, 10, null, null, 7, 2.5));
+        assertNotEquals(key, new DiagramCache.Key(x, y, 0, 10, 0, 10, new double[]{0, 10, 0}, new double[]{0, 0, 10}, 7, 1.5));
+        // the sites and the parameters don't run into each other
+        assertNotEquals(new DiagramCache.Key(new double[]{1}, new double[]{2}, 0, 10, 0, 10, null, null, 0, 3),
+                new DiagramCache.Key(new double[]{1, 2}, new double[]{2, 3}, 0, 10, 0, 10, null, null, 0));
+
+        // the key copies the sites
+        x[0] = 9;
+        assertEquals(key, new DiagramCache.Key(new double[]{1, 2, 3}, y, 0, 10, 0, 10, null, null, 7, 1.5));
+    }
+
+    private static DiagramCache.Key key(int index) {
+        double[][] sites = randomSites(new Random(index), 50, 100, 100);
+        return new DiagramCache.Key(sites[0], sites[1], 0, 100, 0, 100, null, null, index);
+    }
+
+    private static CompactDiagram diagram(int index) {
+        double[][] sites = randomSites(new Random(index), 50, 100, 100);
+        Voronoi voronoi = new Voronoi();
+        voronoi.generateVoronoi(sites[0], sites[1], 0, 100, 0, 100);
+        CompactDiagram diagram = new CompactDiagram();
+        voronoi.getRegions(diagram);
+        return diagram;
+    }
+
+    /* the size of the copy the cache keeps, its arrays have no spare room */
+    private static long size(DiagramCache.Key key, CompactDiagram diagram) {
+        CompactDiagram copy = new CompactDiagram();
+        copy.set(diagram);
+        return key.byteSize() + copy.byteSize();
+    }
+}
@@ -0,0 +1,224 @@
+package quatja.com.vorolay.diagram;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import quatja.com.vorolay.diagram.VoronoiRegion.VoronoiPoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks of generated diagrams shared by the tests: the regions have to tile the boundary and
+ * every point has to be in the region of its nearest site.
+ *
+ * Created by quatja
+ */
+final class DiagramChecks {
+
+    // sample points per diagram for the nearest site check
+    private static final int SAMPLES = 300;
+
+    private DiagramChecks() {
+    }
+
+    static double[][] integerSites(Random random, int count, int width, int height) {
+        double[][] sites = new double[2][count];
+        for (int i = 0; i < count; i++) {
+            sites[0][i] = random.nextInt(width + 1);
+            sites[1][i] = random.nextInt(height + 1);
+        }
+        return sites;
+    }
+
+    static double[][] randomSites(Random random, int count, double width, double height) {
+        double[][] sites = new double[2][count];
+        for (int i = 0; i < count; i++) {
+            sites[0][i] = random.nextDouble() * width;
+            sites[1][i] = random.nextDouble() * height;
+        }
+        return sites;
+    }
+
+    static double area(double[] xs, double[] ys, int count) {
+        double area = 0;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            area += xs[j] * ys[i] - xs[i] * ys[j];
+        }
+        return Math.abs(area) / 2;
+    }
+
+    /*
+     * The region list of the sites, in any order, covers the given area once and every point of
+     * the sample is in the region of its nearest site. The points outside the boundary polygon,
+     * if there is one, aren't in any region.
+     */
+    static void assertTiles(List<VoronoiRegion> regions, double[] x, double[] y, double width, double height,
+                            double expectedArea) {
+        assertTiles(regions, x, y, width, height, expectedArea, null, null);
+    }
+
+    static void assertTiles(List<VoronoiRegion> regions, double[] x, double[] y, double width, double height,
+                            double expectedArea, double[] boundaryX, double[] boundaryY) {
+        assertEquals(x.length, regions.size());
+
+        // coincident sites share one region
+        Set<String> sites = new HashSet<>();
+        double total = 0;
+        double[] xs = new double[16], ys = new double[16];
+        for (VoronoiRegion region : regions) {
+            if (!sites.add(region.getSite().x + "," + region.getSite().y))
+                continue;
+            List<VoronoiPoint> points = region.getPoints();
+            if (xs.length < points.size()) {
+                xs = new double[points.size()];
+                ys = new double[points.size()];
+            }
+            for (int i = 0; i < points.size(); i++) {
+                xs[i] = points.get(i).x;
+                ys[i] = points.get(i).y;
+            }
+            total += area(xs, ys, points.size());
+        }
+        assertEquals("area of the regions", expectedArea, total, 1e-7 * expectedArea);
+
+        Random random = new Random(x.length);
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            double px = random.nextDouble() * width, py = random.nextDouble() * height;
+            if (boundaryX != null && !contains(boundaryX, boundaryY, px, py))
+                continue;
+            int nearest = 0;
+            for (int i = 1; i < x.length; i++) {
+                if (Math.hypot(x[i] - px, y[i] - py) < Math.hypot(x[nearest] - px, y[nearest] - py))
+                    nearest = i;
+            }
+            double best = Math.hypot(x[nearest] - px, y[nearest] - py), second = Double.MAX_VALUE;
+            for (int i = 0; i < x.length; i++) {
+                if (x[i] != x[nearest] || y[i] != y[nearest])
+                    second = Math.min(second, Math.hypot(x[i] - px, y[i] - py));
+            }
+            // on an edge of the diagram
+            if (second - best < 1e-6)
+                continue;
+
+            VoronoiRegion region = regionOf(regions, x[nearest], y[nearest]);
+            if (region.getPoints().isEmpty())
+                continue;
+            assertTrue("(" + px + ", " + py + ") in the region of (" + x[nearest] + ", " + y[nearest] + ")",
+                    contains(region.getPoints(), px, py));
+        }
+    }
+
+    /*
+     * Both lists have the same region for every site, up to rounding. Each polygon holds the
+     * vertices of the other one, so repeated or collinear vertices don't matter.
+     */
+    static void assertSameRegions(List<VoronoiRegion> expected, List<VoronoiRegion> actual, double tolerance) {
+        assertEquals(expected.size(), actual.size());
+        for (VoronoiRegion region : actual) {
+            VoronoiRegion other = regionOf(expected, region.getSite().x, region.getSite().y);
+            String message = "region of " + region.getSite() + ": " + region.getPoints() + " and " + other.getPoints();
+            assertEquals(message, other.getPoints().isEmpty(), region.getPoints().isEmpty());
+            for (VoronoiPoint point : region.getPoints()) {
+                assertTrue(message, contains(other.getPoints(), point.x, point.y, tolerance));
+            }
+            for (VoronoiPoint point : other.getPoints()) {
+                assertTrue(message, contains(region.getPoints(), point.x, point.y, tolerance));
+            }
+        }
+    }
+
+    /*
+     * Both lists have exactly the same polygon for every site, vertex for vertex. Only the vertex
+     * a polygon starts at may differ.
+     */
+    static void assertIdenticalRegions(List<VoronoiRegion> expected, List<VoronoiRegion> actual) {
+        assertEquals(expected.size(), actual.size());
+        // VoronoiPoint has no hashCode
+        Map<String, VoronoiRegion> bySite = new HashMap<>();
+        for (VoronoiRegion region : expected) {
+            bySite.put(region.getSite().x + "," + region.getSite().y, region);
+        }
+
+        for (VoronoiRegion region : actual) {
+            VoronoiRegion other = bySite.get(region.getSite().x + "," + region.getSite().y);
+            assertNotNull("no region of " + region.getSite(), other);
+            String message = "region of " + region.getSite() + ": " + other.getPoints() + " and " + region.getPoints();
+            // the polygons repeat their first vertex at the end
+            List<VoronoiPoint> points = open(region.getPoints()), otherPoints = open(other.getPoints());
+            assertEquals(message, otherPoints.size(), points.size());
+            if (points.isEmpty())
+                continue;
+
+            int start = 0;
+            while (start < points.size() && !same(points.get(start), otherPoints.get(0))) {
+                start++;
+            }
+            assertTrue(message, start < points.size());
+            for (int i = 0; i < points.size(); i++) {
+                assertTrue(message, same(points.get((start + i) % points.size()), otherPoints.get(i)));
+            }
+        }
+    }
+
+    private static List<VoronoiPoint> open(List<VoronoiPoint> points) {
+        if (points.size() > 1 && same(points.get(0), points.get(points.size() - 1)))
+            return points.subList(0, points.size() - 1);
+        return points;
+    }
+
+    private static boolean same(VoronoiPoint a, VoronoiPoint b) {
+        return a.x == b.x && a.y == b.y;
+    }
+
+    private static VoronoiRegion regionOf(List<VoronoiRegion> regions, double x, double y) {
+        for (VoronoiRegion region : regions) {
+            if (region.getSite().x == x && region.getSite().y == y)
+                return region;
+        }
+        fail("no region of (" + x + ", " + y + ")");
+        return null;
+    }
+
+    private static boolean contains(List<VoronoiPoint> points, double x, double y) {
+        double[] xs = new double[points.size()], ys = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i).x;
+            ys[i] = points.get(i).y;
+        }
+        return contains(xs, ys, x, y);
+    }
+
+    /* inside the convex polygon, or within a rounding error of it */
+    private static boolean contains(double[] xs, double[] ys, double x, double y) {
+        boolean negative = false, positive = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            double cross = (xs[i] - xs[j]) * (y - ys[j]) - (ys[i] - ys[j]) * (x - xs[j]);
+            negative |= cross < -1e-9;
+            positive |= cross > 1e-9;
+        }
+        return !(negative && positive);
+    }
+
+    /* inside the convex polygon, or closer to it than the tolerance */
+    static boolean contains(List<VoronoiPoint> points, double x, double y, double tolerance) {
+        boolean negative = false, positive = false;
+        for (int i = 0, j = points.size() - 1; i < points.size(); j = i++) {
+            VoronoiPoint from = points.get(j), to = points.get(i);
+            double length = Math.hypot(to.x - from.x, to.y - from.y);
+            // repeated vertices have no direction
+            if (length < tolerance)
+                continue;
+            double distance = ((to.x - from.x) * (y - from.y) - (to.y - from.y) * (x - from.x)) / length;
+            negative |= distance < -tolerance;
+            positive |= distance > tolerance;
+        }
+        return !(negative && positive);
+    }
+}
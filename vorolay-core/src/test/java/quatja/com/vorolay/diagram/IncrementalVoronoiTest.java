@@ -0,0 +1,137 @@
+package quatja.com.vorolay.diagram;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static quatja.com.vorolay.diagram.DiagramChecks.assertSameRegions;
+import static quatja.com.vorolay.diagram.DiagramChecks.integerSites;
+import static quatja.com.vorolay.diagram.DiagramChecks.randomSites;
+
+/**
+ * The incremental diagram has the regions of a diagram generated again from its sites, after any
+ * number of edits.
+ *
+ * Created by quatja
+ */
+public class IncrementalVoronoiTest {
+
+    private static final double TOLERANCE = 1e-7;
+
+    @Test
+    public void setSites() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 10; trial++) {
+            double[][] sites = randomSites(random, 500, 800, 500);
+            IncrementalVoronoi incremental = new IncrementalVoronoi(0, 800, 0, 500);
+            incremental.setSites(sites[0], sites[1]);
+            assertSameRegions(rebuild(sites[0], sites[1], 800, 500, null, null), incremental.getRegions(), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void coincidentSites() {
+        IncrementalVoronoi incremental = new IncrementalVoronoi(0, 100, 0, 100);
+        incremental.setSites(new double[]{10, 10, 50}, new double[]{10, 10, 50});
+        assertEquals(incremental.getRegion(0).getPoints(), incremental.getRegion(1).getPoints());
+        assertSameRegions(rebuild(new double[]{10, 10, 50}, new double[]{10, 10, 50}, 100, 100, null, null),
+                incremental.getRegions(), TOLERANCE);
+
+        // only the new site has a new region
+        assertArrayEquals(new int[]{3}, incremental.addSite(50, 50));
+        assertSameRegions(rebuild(new double[]{10, 10, 50, 50}, new double[]{10, 10, 50, 50}, 100, 100, null, null),
+                incremental.getRegions(), TOLERANCE);
+
+        // the second site keeps the region of the first one
+        assertArrayEquals(new int[0], incremental.removeSite(0));
+        assertSameRegions(rebuild(new double[]{10, 50, 50}, new double[]{10, 50, 50}, 100, 100, null, null),
+                incremental.getRegions(), TOLERANCE);
+
+        incremental.removeSite(0);
+        assertSameRegions(rebuild(new double[]{50, 50}, new double[]{50, 50}, 100, 100, null, null),
+                incremental.getRegions(), TOLERANCE);
+    }
+
+    @Test
+    public void edits() {
+        assertEdits(new Random(2), 100, 100, null, null);
+    }
+
+    @Test
+    public void editsInBoundary() {
+        int corners = 12;
+        double[] boundaryX = new double[corners], boundaryY = new double[corners];
+        for (int i = 0; i < corners; i++) {
+            boundaryX[i] = 50 + 45 * Math.cos(2 * Math.PI * i / corners);
+            boundaryY[i] = 50 + 45 * Math.sin(2 * Math.PI * i / corners);
+        }
+        assertEdits(new Random(3), 100, 100, boundaryX, boundaryY);
+    }
+
+    /*
+     * Random additions and removals on a small grid, so sites often coincide. The regions outside
+     * of the changed ones have to stay as they were.
+     */
+    private static void assertEdits(Random random, int width, int height, double[] boundaryX, double[] boundaryY) {
+        double[][] start = integerSites(random, 40, width / 4, height / 4);
+        List<double[]> sites = new ArrayList<>();
+        for (int i = 0; i < start[0].length; i++) {
+            sites.add(new double[]{4 * start[0][i], 4 * start[1][i]});
+        }
+
+        IncrementalVoronoi incremental = new IncrementalVoronoi(0, width, 0, height);
+        incremental.setBoundary(boundaryX, boundaryY);
+        incremental.setSites(xs(sites), ys(sites));
+        List<VoronoiRegion> regions = incremental.getRegions();
+
+        for (int edit = 0; edit < 300; edit++) {
+            int[] changed;
+            if (sites.size() > 2 && random.nextBoolean()) {
+                int index = random.nextInt(sites.size());
+                sites.remove(index);
+                regions.remove(index);
+                changed = incremental.removeSite(index);
+            } else {
+                double[] site = {4 * random.nextInt(width / 4 + 1), 4 * random.nextInt(height / 4 + 1)};
+                sites.add(site);
+                regions.add(null);
+                changed = incremental.addSite(site[0], site[1]);
+            }
+            for (int index : changed) {
+                regions.set(index, incremental.getRegion(index));
+            }
+
+            List<VoronoiRegion> expected = rebuild(xs(sites), ys(sites), width, height, boundaryX, boundaryY);
+            assertSameRegions(expected, incremental.getRegions(), TOLERANCE);
+            assertSameRegions(expected, regions, TOLERANCE);
+        }
+    }
+
+    private static List<VoronoiRegion> rebuild(double[] x, double[] y, double width, double height,
+                                               double[] boundaryX, double[] boundaryY) {
+        Voronoi voronoi = new Voronoi();
+        voronoi.setBoundary(boundaryX, boundaryY);
+        voronoi.generateVoronoi(x.clone(), y.clone(), 0, width, 0, height);
+        return voronoi.getRegions();
+    }
+
+    private static double[] xs(List<double[]> sites) {
+        double[] xs = new double[sites.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = sites.get(i)[0];
+        }
+        return xs;
+    }
+
+    private static double[] ys(List<double[]> sites) {
+        double[] ys = new double[sites.size()];
+        for (int i = 0; i < ys.length; i++) {
+            ys[i] = sites.get(i)[1];
+        }
+        return ys;
+    }
+}
@@ -0,0 +1,124 @@
+package quatja.com.vorolay.diagram;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static quatja.com.vorolay.diagram.DiagramChecks.randomSites;
+
+/**
+ * The centroids are the centroids of the region polygons, on the calling thread and on the workers,
+ * and the relaxation stops on convergence, after the iteration count or when the time is spent.
+ *
+ * Created by quatja
+ */
+public class LloydRelaxationTest {
+
+    @After
+    public void coreCount() {
+        Workers.forcedParallelism = 0;
+    }
+
+    @Test
+    public void centroidsOfTheRegions() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 5; trial++) {
+            double[][] sites = randomSites(random, 1000, 800, 600);
+            Voronoi voronoi = new Voronoi();
+            voronoi.generateVoronoi(sites[0].clone(), sites[1].clone(), 0, 800, 0, 600);
+            double[] centroidX = new double[1000], centroidY = new double[1000];
+            voronoi.getCentroids(centroidX, centroidY);
+
+            // the regions are in the sweep order, the centroids in the order of the sites
+            Map<String, Integer> indices = new HashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                indices.put(sites[0][i] + "," + sites[1][i], i);
+            }
+
+            CompactDiagram diagram = new CompactDiagram();
+            voronoi.getRegions(diagram);
+            for (int i = 0; i < diagram.getRegionCount(); i++) {
+                int index = indices.get(diagram.getSiteX(i) + "," + diagram.getSiteY(i));
+                // the compact diagram is in floats, the shoelace sums are in doubles around the site
+                double siteX = sites[0][index], siteY = sites[1][index];
+                double area = 0, cx = 0, cy = 0;
+                int count = diagram.getPointCount(i);
+                for (int j = 0, k = count - 1; j < count; k = j++) {
+                    double xk = diagram.getPointX(i, k) - siteX, yk = diagram.getPointY(i, k) - siteY;
+                    double xj = diagram.getPointX(i, j) - siteX, yj = diagram.getPointY(i, j) - siteY;
+                    double cross = xk * yj - xj * yk;
+                    area += cross;
+                    cx += (xk + xj) * cross;
+                    cy += (yk + yj) * cross;
+                }
+                assertEquals(siteX + cx / (3 * area), centroidX[index], 1e-3);
+                assertEquals(siteY + cy / (3 * area), centroidY[index], 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void parallelCentroids() {
+        Random random = new Random(2);
+        int count = 3 * Voronoi.PARALLEL_CENTROID_THRESHOLD;
+        for (int trial = 0; trial < 3; trial++) {
+            double[][] sites = randomSites(random, count, 1000, 1000);
+            Voronoi voronoi = new Voronoi();
+            voronoi.generateVoronoi(sites[0].clone(), sites[1].clone(), 0, 1000, 0, 1000);
+
+            Workers.forcedParallelism = 1;
+            double[] expectedX = new double[count], expectedY = new double[count];
+            voronoi.getCentroids(expectedX, expectedY);
+
+            Workers.forcedParallelism = 4;
+            double[] centroidX = new double[count], centroidY = new double[count];
+            voronoi.getCentroids(centroidX, centroidY);
+            assertArrayEquals(expectedX, centroidX, 0);
+            assertArrayEquals(expectedY, centroidY, 0);
+        }
+    }
+
+    @Test
+    public void convergence() {
+        double[][] sites = randomSites(new Random(3), 200, 500, 500);
+        LloydRelaxation relaxation = new LloydRelaxation(new Voronoi());
+        relaxation.setMaxIterations(1000);
+        assertTrue(relaxation.relax(sites[0], sites[1], 0, 500, 0, 500));
+        assertTrue(relaxation.getIterations() > 1 && relaxation.getIterations() < 1000);
+
+        // relaxed sites move less than the threshold in the next iteration
+        relaxation.setMaxIterations(1);
+        assertTrue(relaxation.relax(sites[0], sites[1], 0, 500, 0, 500));
+        assertEquals(1, relaxation.getIterations());
+    }
+
+    @Test
+    public void maxIterations() {
+        double[][] sites = randomSites(new Random(4), 200, 500, 500);
+        LloydRelaxation relaxation = new LloydRelaxation(new Voronoi());
+        relaxation.setMaxIterations(3);
+        // no move is below 0
+        relaxation.setConvergenceThreshold(0);
+        assertFalse(relaxation.relax(sites[0], sites[1], 0, 500, 0, 500));
+        assertEquals(3, relaxation.getIterations());
+    }
+
+    @Test
+    public void timeBudget() {
+        double[][] sites = randomSites(new Random(5), 20000, 1000, 1000);
+        LloydRelaxation relaxation = new LloydRelaxation(new Voronoi());
+        relaxation.setMaxIterations(1000);
+        relaxation.setConvergenceThreshold(0);
+        relaxation.setTimeBudget(1);
+        assertFalse(relaxation.relax(sites[0], sites[1], 0, 1000, 0, 1000));
+        // an iteration of 20000 sites takes longer than the budget, at most one starts in it
+        assertTrue(relaxation.getIterations() <= 1);
+    }
+}
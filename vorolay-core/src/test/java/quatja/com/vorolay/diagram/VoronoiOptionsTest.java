@@ -0,0 +1,68 @@
+package quatja.com.vorolay.diagram;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static quatja.com.vorolay.diagram.DiagramChecks.assertIdenticalRegions;
+import static quatja.com.vorolay.diagram.DiagramChecks.assertSameRegions;
+import static quatja.com.vorolay.diagram.DiagramChecks.integerSites;
+import static quatja.com.vorolay.diagram.DiagramChecks.randomSites;
+
+/**
+ * The implementation options of the engine give the diagram of the default settings.
+ *
+ * Created by quatja
+ */
+public class VoronoiOptionsTest {
+
+    private static final double TOLERANCE = 1e-7;
+
+    @Test
+    public void heapEventQueue() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 10; trial++) {
+            double[][] sites = trial % 2 == 0 ? randomSites(random, 3000, 800, 500) : integerSites(random, 3000, 800, 500);
+
+            Voronoi voronoi = new Voronoi();
+            voronoi.setEventQueue(Voronoi.EVENT_QUEUE_HEAP);
+            assertSameRegions(generate(new Voronoi(), sites, 800, 500), generate(voronoi, sites, 800, 500), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void treeBeachLine() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 10; trial++) {
+            double[][] sites = trial % 2 == 0 ? randomSites(random, 3000, 800, 500) : integerSites(random, 3000, 800, 500);
+
+            Voronoi voronoi = new Voronoi();
+            voronoi.setBeachLine(Voronoi.BEACH_LINE_TREE);
+            assertSameRegions(generate(new Voronoi(), sites, 800, 500), generate(voronoi, sites, 800, 500), TOLERANCE);
+
+            // the tree together with the heap
+            voronoi.setEventQueue(Voronoi.EVENT_QUEUE_HEAP);
+            assertSameRegions(generate(new Voronoi(), sites, 800, 500), generate(voronoi, sites, 800, 500), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void parallelStrips() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 6; trial++) {
+            double[][] sites = trial % 2 == 0 ? randomSites(random, 20000, 1000, 1000) : integerSites(random, 20000, 1000, 1000);
+
+            Voronoi voronoi = new Voronoi();
+            voronoi.setParallelGeneration(true);
+            voronoi.stripCount = 2 + trial;
+            // not only close, the strips give the regions of the sequential sweep
+            assertIdenticalRegions(generate(new Voronoi(), sites, 1000, 1000), generate(voronoi, sites, 1000, 1000));
+        }
+    }
+
+    private static List<VoronoiRegion> generate(Voronoi voronoi, double[][] sites, double width, double height) {
+        voronoi.generateVoronoi(sites[0].clone(), sites[1].clone(), 0, width, 0, height);
+        return voronoi.getRegions();
+    }
+}
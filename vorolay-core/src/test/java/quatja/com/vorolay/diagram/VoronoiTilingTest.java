@@ -0,0 +1,127 @@
+package quatja.com.vorolay.diagram;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static quatja.com.vorolay.diagram.DiagramChecks.assertTiles;
+import static quatja.com.vorolay.diagram.DiagramChecks.integerSites;
+import static quatja.com.vorolay.diagram.DiagramChecks.randomSites;
+
+/**
+ * The regions built from the half-edge diagram tile the bounding box or the boundary polygon.
+ * Integer sites put diagram vertices on the sides of the box, which the sweep and the clipping
+ * compute with different rounding.
+ *
+ * Created by quatja
+ */
+public class VoronoiTilingTest {
+
+    @Test
+    public void vertexOnTheBoxSide() {
+        assertTilesBox(new double[]{11, 17, 5}, new double[]{7, 5, 1}, 100, 100);
+    }
+
+    @Test
+    public void twoVerticesNearTheBoxSide() {
+        assertTilesBox(new double[]{64, 72, 79, 76}, new double[]{56, 58, 47, 42}, 100, 100);
+    }
+
+    @Test
+    public void smallIntegerDiagrams() {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 20; trial++) {
+            double[][] sites = integerSites(random, 100, 100, 100);
+            assertTilesBox(sites[0], sites[1], 100, 100);
+        }
+    }
+
+    @Test
+    public void bigIntegerDiagrams() {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 5; trial++) {
+            double[][] sites = integerSites(random, 5000, 1000, 600);
+            assertTilesBox(sites[0], sites[1], 1000, 600);
+        }
+    }
+
+    @Test
+    public void coincidentSites() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 10; trial++) {
+            // a few hundred sites on a 20 x 20 grid repeat a lot
+            double[][] sites = integerSites(random, 300, 20, 20);
+            assertTilesBox(sites[0], sites[1], 20, 20);
+        }
+    }
+
+    @Test
+    public void randomDiagrams() {
+        Random random = new Random(4);
+        for (int trial = 0; trial < 10; trial++) {
+            double[][] sites = randomSites(random, 2000, 800, 500);
+            assertTilesBox(sites[0], sites[1], 800, 500);
+        }
+    }
+
+    @Test
+    public void boundaryPolygon() {
+        int corners = 32;
+        double[] boundaryX = new double[corners], boundaryY = new double[corners];
+        for (int i = 0; i < corners; i++) {
+            boundaryX[i] = 50 + 40 * Math.cos(2 * Math.PI * i / corners);
+            boundaryY[i] = 50 + 40 * Math.sin(2 * Math.PI * i / corners);
+        }
+        double area = DiagramChecks.area(boundaryX, boundaryY, corners);
+
+        Random random = new Random(5);
+        for (int trial = 0; trial < 10; trial++) {
+            double[][] sites = integerSites(random, 200, 100, 100);
+            Voronoi voronoi = new Voronoi();
+            voronoi.setBoundary(boundaryX, boundaryY);
+            voronoi.generateVoronoi(sites[0].clone(), sites[1].clone(), 0, 100, 0, 100);
+            assertTiles(voronoi.getRegions(), sites[0], sites[1], 100, 100, area, boundaryX, boundaryY);
+        }
+    }
+
+    @Test
+    public void parallelStrips() {
+        Random random = new Random(6);
+        for (int trial = 0; trial < 3; trial++) {
+            double[][] sites = integerSites(random, 20000, 1000, 1000);
+            Voronoi voronoi = new Voronoi();
+            voronoi.setParallelGeneration(true);
+            voronoi.stripCount = 4;
+            voronoi.generateVoronoi(sites[0].clone(), sites[1].clone(), 0, 1000, 0, 1000);
+            assertTiles(voronoi.getRegions(), sites[0], sites[1], 1000, 1000, 1000 * 1000);
+        }
+    }
+
+    @Test
+    public void noSites() {
+        Voronoi voronoi = new Voronoi();
+        voronoi.setReuseWorkspace(true);
+        double[][] sites = randomSites(new Random(7), 50, 100, 100);
+        voronoi.generateVoronoi(sites[0], sites[1], 0, 100, 0, 100);
+        CompactDiagram diagram = new CompactDiagram();
+        voronoi.getRegions(diagram);
+
+        // the regions of the last diagram are gone
+        voronoi.generateVoronoi(new double[0], new double[0], 0, 100, 0, 100);
+        assertTrue(voronoi.getRegions().isEmpty());
+        voronoi.getRegions(diagram);
+        assertEquals(0, diagram.getRegionCount());
+        assertEquals(0, diagram.getEdgeCount());
+        assertEquals(0, voronoi.getTriangleCount());
+        assertNull(voronoi.getHalfEdgeDiagram());
+    }
+
+    private static void assertTilesBox(double[] x, double[] y, double width, double height) {
+        Voronoi voronoi = new Voronoi();
+        voronoi.generateVoronoi(x.clone(), y.clone(), 0, width, 0, height);
+        assertTiles(voronoi.getRegions(), x, y, width, height, width * height);
+    }
+}
@@ -1,21 +1,46 @@
 package quatja.com.vorolay;
 
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.CornerPathEffect;
+import android.graphics.Matrix;
+import android.graphics.Outline;
 import android.graphics.Paint;
-import android.graphics.Region;
+import android.graphics.Path;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.graphics.Shader;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewOutlineProvider;
+import android.view.ViewParent;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import quatja.com.vorolay.diagram.CompactDiagram;
+import quatja.com.vorolay.diagram.DiagramCache;
+import quatja.com.vorolay.diagram.IncrementalVoronoi;
+import quatja.com.vorolay.diagram.LloydRelaxation;
 import quatja.com.vorolay.diagram.Voronoi;
 import quatja.com.vorolay.diagram.VoronoiRegion;
 import quatja.com.vorolay.diagram.VoronoiRegion.VoronoiPoint;
@@ -45,6 +70,66 @@ public class VoronoiView extends ViewGroup {
      * Use with {@link #setGenerationType} and {@code app:generation_type}
      */
     final static public int GENERATION_TYPE_CUSTOM = 3;
+    /**
+     * Diagram sites are generating randomly and then relaxed (Lloyd relaxation), so the regions
+     * have similar sizes.
+     * Use with {@link #setGenerationType} and {@code app:generation_type}
+     */
+    final static public int GENERATION_TYPE_RELAXED = 4;
+    /**
+     * Diagram sites are generating randomly with Poisson-disk sampling: they are spread over the
+     * whole view, or the boundary polygon, and keep the minimum distance between each other.
+     * Use with {@link #setGenerationType} and {@code app:generation_type}
+     */
+    final static public int GENERATION_TYPE_POISSON = 5;
+
+    /**
+     * The border of every region is stroked as a closed path, so an edge between two regions is
+     * stroked twice. Round corners are drawn with a corner effect.
+     * Use with {@link #setBorderMode} and {@code app:border_mode}
+     */
+    final static public int BORDER_MODE_REGIONS = 1;
+    /**
+     * Every edge of the diagram is stroked once, all of them in one batch of lines. Round corners
+     * are drawn as round line caps.
+     * Use with {@link #setBorderMode} and {@code app:border_mode}
+     */
+    final static public int BORDER_MODE_EDGES = 2;
+
+    /**
+     * Children are drawn on the canvas clipped to the path of their region.
+     * Use with {@link #setChildClipMode} and {@code app:child_clip}
+     */
+    final static public int CHILD_CLIP_PATH = 1;
+    /**
+     * Every child is drawn once into a bitmap, then its region polygon is filled with that bitmap
+     * through a {@link BitmapShader}. The edges are antialiased and a frame costs one path fill
+     * per child. The bitmap is drawn again only when the child invalidates, so the mode suits
+     * static children; animations of a child aren't shown.
+     * Use with {@link #setChildClipMode} and {@code app:child_clip}
+     */
+    final static public int CHILD_CLIP_BITMAP = 2;
+    /**
+     * Every child gets the outline of its region and clips to it ({@link View#setClipToOutline}),
+     * so the clipping is done by the RenderThread and the children can keep their own hardware
+     * layers. Outlines clip convex paths from Android 13; on older versions, on a software canvas
+     * and before Lollipop the children are clipped like with {@link #CHILD_CLIP_PATH}.
+     * Use with {@link #setChildClipMode} and {@code app:child_clip}
+     */
+    final static public int CHILD_CLIP_OUTLINE = 3;
+
+    /**
+     * Children are measured at most as big as the bounding rectangle of their region and centred
+     * in it, so most of them reach out of the region and are clipped.
+     * Use with {@link #setChildLayoutMode} and {@code app:child_layout}
+     */
+    final static public int CHILD_LAYOUT_BOUNDS = 1;
+    /**
+     * Children are measured at most as big as a large rectangle inside their region and centred
+     * in it. They are inside the region then and are drawn without any clip.
+     * Use with {@link #setChildLayoutMode} and {@code app:child_layout}
+     */
+    final static public int CHILD_LAYOUT_INSCRIBED = 2;
 
 
     /*
@@ -55,6 +140,21 @@ public class VoronoiView extends ViewGroup {
     final static private float DEF_BORDER_WIDTH = 3.5f;
     final static private boolean DEF_BORDER_CORNERS_ROUND = true;
     final static private int DEF_GENERATION_TYPE = GENERATION_TYPE_RANDOM;
+    final static private int DEF_BORDER_MODE = BORDER_MODE_REGIONS;
+    final static private int DEF_CHILD_CLIP_MODE = CHILD_CLIP_PATH;
+    final static private int DEF_CHILD_LAYOUT_MODE = CHILD_LAYOUT_BOUNDS;
+    final static private int DEF_RELAX_ITERATIONS = 20;
+    final static private float DEF_RELAX_THRESHOLD = 1f;
+    final static private long DEF_RELAX_TIME_BUDGET = 30;
+    final static private int RANDOM_SITE_ATTEMPTS = 100;
+    final static private boolean DEF_ASYNC_GENERATION = false;
+    final static private boolean DEF_CACHE_ENABLED = true;
+
+    // one thread for all the views, so the background engine of a view is never used concurrently
+    private static ExecutorService sGenerationExecutor;
+    private static boolean sCacheTrimRegistered;
+    // whether outlines clip convex paths, found out once
+    private static Boolean sOutlineClipsPaths;
 
 
 
@@ -63,12 +163,42 @@ public class VoronoiView extends ViewGroup {
      */
 
     private Paint p;
+    private Paint mEdgePaint;
 
     private Voronoi mVoronoi;
-    private List<VoronoiRegion> mRegions;
+    private IncrementalVoronoi mIncrementalVoronoi;
+    private LloydRelaxation mRelaxation;
+    private CompactDiagram mDiagram;
+    // the path of the region being drawn, refilled for every child
+    private Path mPath = new Path();
+    // the borders of all the regions, recorded once per diagram and style, null when out of date
+    private Picture mBorderPicture;
     private List<VoronoiRegion.VoronoiPoint> mCustomPoints;
+    private double[] mBoundaryX, mBoundaryY;
     private OnRegionClickListener mRegionClickListener;
 
+    // the bitmaps of the children in the bitmap clip mode
+    private Map<View, ChildSnapshot> mSnapshots = new HashMap<>();
+    // draws the children into their bitmaps, one bitmap after the other
+    private final Canvas mSnapshotCanvas = new Canvas();
+    // the outline of the children in the outline clip mode, made on the first use
+    private ViewOutlineProvider mOutlineProvider;
+
+    // children laid out inside their regions, they aren't clipped
+    private Set<View> mUnclippedChildren = new HashSet<>();
+    private float[] mInscribedRect = new float[4];
+
+    // children whose regions were changed by addRegion/removeRegion since the last layout
+    private Set<View> mChangedChildren = new HashSet<>();
+    private boolean mPartialLayout;
+
+    // id of the latest requested diagram, a background result of an older request is dropped
+    private final AtomicInteger mGeneration = new AtomicInteger();
+    private boolean mGenerating;
+    // engine of the background generation, only used on the generation thread
+    private Voronoi mAsyncVoronoi;
+    private LloydRelaxation mAsyncRelaxation;
+
     private int mRegionsCount;
     private int mViewWidth, mViewHeight;
     private int mDistanceBetweenSites = 20;
@@ -80,7 +210,17 @@ public class VoronoiView extends ViewGroup {
     private int mBorderColor;
     private float mBorderWidth;
     private boolean mRoundCornersEnabled;
+    private int mBorderMode;
+    private int mChildClipMode;
+    private int mChildLayoutMode;
     private int mGenerationType;
+    private int mRelaxIterations = DEF_RELAX_ITERATIONS;
+    private float mRelaxThreshold = DEF_RELAX_THRESHOLD;
+    private long mRelaxTimeBudget = DEF_RELAX_TIME_BUDGET;
+    private boolean mAsyncGeneration;
+    private boolean mCacheEnabled = DEF_CACHE_ENABLED;
+    private long mSeed;
+    private boolean mSeeded;
 
 
     /**
@@ -125,15 +265,20 @@ public class VoronoiView extends ViewGroup {
         mBorderColor = a.getColor(R.styleable.VoronoiView_border_color, DEF_BORDERS_COLOR);
         mBorderWidth = a.getFloat(R.styleable.VoronoiView_border_width, DEF_BORDER_WIDTH);
         mRoundCornersEnabled = a.getBoolean(R.styleable.VoronoiView_border_round, DEF_BORDER_CORNERS_ROUND);
+        mBorderMode = a.getInt(R.styleable.VoronoiView_border_mode, DEF_BORDER_MODE);
+        mChildClipMode = a.getInt(R.styleable.VoronoiView_child_clip, DEF_CHILD_CLIP_MODE);
+        mChildLayoutMode = a.getInt(R.styleable.VoronoiView_child_layout, DEF_CHILD_LAYOUT_MODE);
         mGenerationType = a.getInt(R.styleable.VoronoiView_generation_type, DEF_GENERATION_TYPE);
+        mAsyncGeneration = a.getBoolean(R.styleable.VoronoiView_async_generation, DEF_ASYNC_GENERATION);
         a.recycle();
 
         initPaint();
         initDiagram();
+        registerCacheTrim(getContext());
     }
 
     private void initDiagram() {
-        mVoronoi = new Voronoi(mDistanceBetweenSites);
+        mVoronoi = new Voronoi();
     }
 
     private void initPaint() {
@@ -148,6 +293,16 @@ public class VoronoiView extends ViewGroup {
             p.setStrokeCap(Paint.Cap.SQUARE);
             p.setPathEffect(new CornerPathEffect(15));
         }
+
+        // the lines of the edges mode meet at the vertices, butt caps would leave notches there
+        mEdgePaint = new Paint();
+        mEdgePaint.setAntiAlias(true);
+        mEdgePaint.setColor(mBorderColor);
+        mEdgePaint.setStrokeWidth(mBorderWidth);
+        mEdgePaint.setStyle(Paint.Style.STROKE);
+        mEdgePaint.setStrokeCap(mRoundCornersEnabled ? Paint.Cap.ROUND : Paint.Cap.SQUARE);
+
+        invalidateBorders();
     }
 
 
@@ -169,6 +324,7 @@ public class VoronoiView extends ViewGroup {
     public void enableBorders(boolean enable) {
         this.mBorderEnabled = enable;
 
+        invalidate();
         requestLayout();
     }
 
@@ -248,10 +404,81 @@ public class VoronoiView extends ViewGroup {
     }
 
 
+    /**
+     * Sets how the borders are drawn
+     *
+     * @param mode border mode. One of {@link #BORDER_MODE_REGIONS} or {@link #BORDER_MODE_EDGES}.
+     */
+    public void setBorderMode(int mode) {
+        this.mBorderMode = mode;
+
+        invalidateBorders();
+    }
+
+    /**
+     * Return the border mode
+     *
+     * @return border mode
+     */
+    public int getBorderMode() {
+        return this.mBorderMode;
+    }
+
+
+    /**
+     * Sets how the children are cut to their regions
+     *
+     * @param mode clip mode. One of {@link #CHILD_CLIP_PATH}, {@link #CHILD_CLIP_BITMAP} or {@link #CHILD_CLIP_OUTLINE}.
+     */
+    public void setChildClipMode(int mode) {
+        this.mChildClipMode = mode;
+
+        releaseSnapshots();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            for (int i = 0; i < getChildCount(); i++) {
+                updateOutline(getChildAt(i), mode == CHILD_CLIP_OUTLINE);
+            }
+        }
+        invalidate();
+    }
+
+    /**
+     * Return the clip mode of the children
+     *
+     * @return clip mode
+     */
+    public int getChildClipMode() {
+        return this.mChildClipMode;
+    }
+
+
+    /**
+     * Sets how the children are placed in their regions
+     *
+     * @param mode layout mode. One of {@link #CHILD_LAYOUT_BOUNDS} or {@link #CHILD_LAYOUT_INSCRIBED}.
+     */
+    public void setChildLayoutMode(int mode) {
+        this.mChildLayoutMode = mode;
+
+        mPartialLayout = false;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Return the layout mode of the children
+     *
+     * @return layout mode
+     */
+    public int getChildLayoutMode() {
+        return this.mChildLayoutMode;
+    }
+
+
     /**
      * Sets the type of points generation
      *
-     * @param points_type points generation type. One of {@link #GENERATION_TYPE_RANDOM}, {@link #GENERATION_TYPE_ORDERED}, or {@link #GENERATION_TYPE_CUSTOM}.
+     * @param points_type points generation type. One of {@link #GENERATION_TYPE_RANDOM}, {@link #GENERATION_TYPE_ORDERED}, {@link #GENERATION_TYPE_CUSTOM}, {@link #GENERATION_TYPE_RELAXED} or {@link #GENERATION_TYPE_POISSON}.
      */
     public void setGenerationType(int points_type) {
         this.mGenerationType = points_type;
@@ -268,6 +495,126 @@ public class VoronoiView extends ViewGroup {
     }
 
 
+    /**
+     * Sets the maximum count of Lloyd iterations for {@link #GENERATION_TYPE_RELAXED}
+     *
+     * @param iterations iteration count
+     */
+    public void setRelaxIterations(int iterations) {
+        this.mRelaxIterations = iterations;
+    }
+
+    /**
+     * Return the maximum count of Lloyd iterations
+     *
+     * @return iteration count
+     */
+    public int getRelaxIterations() {
+        return this.mRelaxIterations;
+    }
+
+    /**
+     * Sets the convergence threshold for {@link #GENERATION_TYPE_RELAXED}. The relaxation stops
+     * when no site moves more than this distance in one iteration.
+     *
+     * @param threshold distance in pixels
+     */
+    public void setRelaxThreshold(float threshold) {
+        this.mRelaxThreshold = threshold;
+    }
+
+    /**
+     * Return the convergence threshold of the relaxation
+     *
+     * @return distance in pixels
+     */
+    public float getRelaxThreshold() {
+        return this.mRelaxThreshold;
+    }
+
+    /**
+     * Sets the time budget for {@link #GENERATION_TYPE_RELAXED}. No new iteration is started once
+     * it is spent, so the generation stays short on the UI thread.
+     *
+     * @param millis budget in milliseconds, 0 for no limit
+     */
+    public void setRelaxTimeBudget(long millis) {
+        this.mRelaxTimeBudget = millis;
+    }
+
+    /**
+     * Return the time budget of the relaxation
+     *
+     * @return budget in milliseconds
+     */
+    public long getRelaxTimeBudget() {
+        return this.mRelaxTimeBudget;
+    }
+
+
+    /**
+     * Enables the generation of the diagram on a background thread. The view keeps showing the
+     * previous diagram, or nothing on the first generation, until the new one is ready. The result
+     * of a generation is dropped if a newer one was requested in the meantime.
+     *
+     * @param enabled True if the diagram should be generated in the background, false otherwise.
+     */
+    public void setAsyncGenerationEnabled(boolean enabled) {
+        this.mAsyncGeneration = enabled;
+    }
+
+    /**
+     * Is the diagram generated on a background thread
+     *
+     * @return True if the generation is asynchronous, false otherwise.
+     */
+    public boolean isAsyncGenerationEnabled() {
+        return this.mAsyncGeneration;
+    }
+
+
+    /**
+     * Sets the seed of the random site generation. The random, relaxed, poisson and ordered
+     * generation types of a seeded view place the same sites for the same size and region count.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.mSeed = seed;
+        this.mSeeded = true;
+    }
+
+    /**
+     * Return the seed of the random site generation
+     *
+     * @return the seed, 0 if it wasn't set
+     */
+    public long getSeed() {
+        return this.mSeed;
+    }
+
+    /**
+     * Enables the process-wide diagram cache ({@link DiagramCache#getDefault}). Diagrams of the
+     * same sites, size, boundary and generation parameters are then generated once. Only the
+     * custom generation type and seeded views ({@link #setSeed}) use the cache, the other sites
+     * are different every time.
+     *
+     * @param enabled True if the cache should be used, false otherwise.
+     */
+    public void setCacheEnabled(boolean enabled) {
+        this.mCacheEnabled = enabled;
+    }
+
+    /**
+     * Does the view use the diagram cache
+     *
+     * @return True if the cache is used, false otherwise.
+     */
+    public boolean isCacheEnabled() {
+        return this.mCacheEnabled;
+    }
+
+
     /**
      * Sets the user-defined diagram sites if the generation type ({@link #setGenerationType}) is {@link #GENERATION_TYPE_CUSTOM}
      *
@@ -278,6 +625,32 @@ public class VoronoiView extends ViewGroup {
     }
 
 
+    /**
+     * Sets a convex polygon the regions are clipped to, in view coordinates. The random, the
+     * relaxed and the Poisson generation types place the sites inside it, the regions of other
+     * sites outside of it are empty.
+     *
+     * @param boundary the polygon vertices in any winding order, or null for the view bounds
+     */
+    public void setBoundary(List<VoronoiPoint> boundary) {
+        if (boundary == null) {
+            mBoundaryX = null;
+            mBoundaryY = null;
+        } else {
+            mBoundaryX = new double[boundary.size()];
+            mBoundaryY = new double[boundary.size()];
+            for (int i = 0; i < boundary.size(); i++) {
+                mBoundaryX[i] = boundary.get(i).x;
+                mBoundaryY[i] = boundary.get(i).y;
+            }
+        }
+
+        generateDiagram();
+        requestLayout();
+        invalidate();
+    }
+
+
     /**
      * Regenerate a diagram
      */
@@ -288,6 +661,76 @@ public class VoronoiView extends ViewGroup {
     }
 
 
+    /**
+     * Adds a child with a new region. Unlike {@link #addView} followed by {@link #refresh} only the
+     * neighbouring regions change, the other children keep their regions.
+     * The new site is random, use {@link #addRegion(View, VoronoiPoint)} to place it.
+     *
+     * @param child the child view
+     */
+    public void addRegion(View child) {
+        addRegion(child, null);
+    }
+
+    /**
+     * Adds a child with a new region around the given site. Only the neighbouring regions change,
+     * the other children keep their regions.
+     *
+     * @param child the child view
+     * @param site  the site of the new region or null for a random one
+     */
+    public void addRegion(View child, VoronoiPoint site) {
+        addView(child);
+        countRegions();
+
+        // the pending diagram doesn't have the child, a new one is requested
+        if (mGenerating) {
+            generateDiagram();
+            return;
+        }
+        // the first diagram isn't generated yet, it includes the child
+        if (mDiagram == null)
+            return;
+
+        if (site == null)
+            site = generateRandomSite();
+
+        // the new region is the last one, it is appended by updateRegions
+        int[] changed;
+        try {
+            changed = getIncrementalVoronoi().addSite(site.x, site.y);
+        } catch (IllegalArgumentException e) {
+            // a site far outside the view, the child isn't kept without a region
+            removeViewAt(getChildCount() - 1);
+            countRegions();
+            throw e;
+        }
+        updateRegions(changed);
+    }
+
+    /**
+     * Removes the child at the given position together with its region. Only the neighbouring
+     * regions change, the other children keep their regions.
+     *
+     * @param index the position of the child
+     */
+    public void removeRegion(int index) {
+        removeViewAt(index);
+        countRegions();
+
+        if (mGenerating) {
+            generateDiagram();
+            return;
+        }
+        if (mDiagram == null)
+            return;
+
+        int[] changed = getIncrementalVoronoi().removeSite(index);
+        mDiagram.removeRegion(index);
+        updateRegions(changed);
+    }
+
+
     /**
      * Set layer-type HARDWARE or SOFTWARE for the view (true/false).
      *
@@ -316,26 +759,111 @@ public class VoronoiView extends ViewGroup {
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        boolean partial = mPartialLayout && !changed;
+        // while a diagram is generated in the background the previous one may have fewer regions
+        int regions = mDiagram != null ? mDiagram.getRegionCount() : 0;
 
         for (int i = 0; i < getChildCount(); i++) {
             View child = getChildAt(i);
             child.setTag(i);
-            VoronoiRegion region = mRegions.get(i);
+            if (i < regions && (!partial || mChangedChildren.contains(child)))
+                layoutChild(child, i);
+        }
+
+        mPartialLayout = false;
+        mChangedChildren.clear();
+    }
+
+    private void layoutChild(View child, int region) {
+        if (mChildLayoutMode == CHILD_LAYOUT_INSCRIBED && mDiagram.getInscribedRect(region, mInscribedRect)) {
+            layoutInscribed(child);
+        } else {
+            mUnclippedChildren.remove(child);
+
             child.measure(
-                    MeasureSpec.makeMeasureSpec((int) region.width, MeasureSpec.AT_MOST),
-                    MeasureSpec.makeMeasureSpec((int) region.height, MeasureSpec.AT_MOST)
+                    MeasureSpec.makeMeasureSpec((int) mDiagram.getWidth(region), MeasureSpec.AT_MOST),
+                    MeasureSpec.makeMeasureSpec((int) mDiagram.getHeight(region), MeasureSpec.AT_MOST)
             );
             int curWidth = child.getMeasuredWidth();
             int curHeight = child.getMeasuredHeight();
+            int centerX = (int) mDiagram.getCenterX(region);
+            int centerY = (int) mDiagram.getCenterY(region);
 
             //set children into the center of the region rectangle
             child.layout(
-                    (int) region.center_rect.x - curWidth / 2,
-                    (int) region.center_rect.y - curHeight / 2,
-                    (int) region.center_rect.x + curWidth,
-                    (int) region.center_rect.y + curHeight
+                    centerX - curWidth / 2,
+                    centerY - curHeight / 2,
+                    centerX + curWidth,
+                    centerY + curHeight
             );
         }
+
+        if (mChildClipMode == CHILD_CLIP_OUTLINE && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP)
+            updateOutline(child, true);
+    }
+
+    /*
+     * Centres the child in the inscribed rectangle of its region, measured at most as big as the
+     * whole pixels of the rectangle. A child which keeps to that size is inside its region.
+     */
+    private void layoutInscribed(View child) {
+        int left = (int) Math.ceil(mInscribedRect[0]);
+        int top = (int) Math.ceil(mInscribedRect[1]);
+        int right = (int) Math.floor(mInscribedRect[2]);
+        int bottom = (int) Math.floor(mInscribedRect[3]);
+
+        child.measure(
+                MeasureSpec.makeMeasureSpec(Math.max(right - left, 0), MeasureSpec.AT_MOST),
+                MeasureSpec.makeMeasureSpec(Math.max(bottom - top, 0), MeasureSpec.AT_MOST)
+        );
+        int curWidth = child.getMeasuredWidth();
+        int curHeight = child.getMeasuredHeight();
+        int childLeft = (left + right - curWidth) / 2;
+        int childTop = (top + bottom - curHeight) / 2;
+        child.layout(childLeft, childTop, childLeft + curWidth, childTop + curHeight);
+
+        // a child can be measured bigger than it was allowed
+        if (curWidth <= right - left && curHeight <= bottom - top)
+            mUnclippedChildren.add(child);
+        else
+            mUnclippedChildren.remove(child);
+    }
+
+    /*
+     * Gives the child the outline of its region, or takes it back
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private void updateOutline(View child, boolean outlined) {
+        if (outlined) {
+            if (mOutlineProvider == null)
+                mOutlineProvider = new RegionOutlineProvider();
+            if (child.getOutlineProvider() != mOutlineProvider) {
+                child.setOutlineProvider(mOutlineProvider);
+                child.setClipToOutline(true);
+            }
+            // the outline depends on the region and on the position of the child
+            child.invalidateOutline();
+        } else if (mOutlineProvider != null && child.getOutlineProvider() == mOutlineProvider) {
+            child.setOutlineProvider(ViewOutlineProvider.BACKGROUND);
+            child.setClipToOutline(false);
+        }
+    }
+
+    private static synchronized boolean outlineClipsPaths() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP)
+            return false;
+
+        if (sOutlineClipsPaths == null) {
+            Path triangle = new Path();
+            triangle.moveTo(0, 0);
+            triangle.lineTo(1, 0);
+            triangle.lineTo(0, 1);
+            triangle.close();
+            Outline outline = new Outline();
+            outline.setConvexPath(triangle);
+            sOutlineClipsPaths = outline.canClip();
+        }
+        return sOutlineClipsPaths;
     }
 
 
@@ -354,15 +882,28 @@ public class VoronoiView extends ViewGroup {
     @Override
     protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
         Integer index = (Integer) child.getTag();
-        VoronoiRegion region = mRegions.get(index);
+        // a child without a region yet isn't drawn
+        if (index == null || mDiagram == null || index >= mDiagram.getRegionCount())
+            return false;
+        // the child is inside its region
+        if (mUnclippedChildren.contains(child))
+            return super.drawChild(canvas, child, drawingTime);
+        if (mChildClipMode == CHILD_CLIP_BITMAP) {
+            drawSnapshot(canvas, child, index);
+            return false;
+        }
+        // the child clips itself to its outline
+        if (mChildClipMode == CHILD_CLIP_OUTLINE && canvas.isHardwareAccelerated() && outlineClipsPaths())
+            return super.drawChild(canvas, child, drawingTime);
 
-        // firstly clip and draw children
-        canvas.clipPath(region.path, Region.Op.REPLACE);
-        boolean result = super.drawChild(canvas, child, drawingTime);
+        Path path = regionPath(index);
 
-        // then draw borders
-        if (mBorderEnabled)
-            canvas.drawPath(region.path, p);
+        // clip and draw children, the borders are drawn over all of them by dispatchDraw. The clip
+        // is restored, the children drawn without a clip must not get the one of the previous child
+        int saveCount = canvas.save();
+        canvas.clipPath(path);
+        boolean result = super.drawChild(canvas, child, drawingTime);
+        canvas.restoreToCount(saveCount);
 
         // draw site
 //        canvas.drawCircle((float)region.site.x, (float)region.site.y, 10, p);
@@ -370,18 +911,149 @@ public class VoronoiView extends ViewGroup {
         return result;
     }
 
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+
+        if (!mBorderEnabled || mDiagram == null)
+            return;
+
+        // hardware canvases can't draw pictures before Marshmallow
+        if (canvas.isHardwareAccelerated() && Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            drawBorders(canvas);
+            return;
+        }
+
+        // the corner effect and the strokes are computed once, then the picture is replayed
+        if (mBorderPicture == null) {
+            Picture picture = new Picture();
+            drawBorders(picture.beginRecording(getWidth(), getHeight()));
+            picture.endRecording();
+            mBorderPicture = picture;
+        }
+        canvas.drawPicture(mBorderPicture);
+    }
+
+    /*
+     * Fills the region with the bitmap of the child. The bitmap is drawn again if the child was
+     * invalidated since, see invalidateChildInParent and onDescendantInvalidated.
+     */
+    private void drawSnapshot(Canvas canvas, View child, int region) {
+        int width = child.getWidth();
+        int height = child.getHeight();
+        if (width <= 0 || height <= 0)
+            return;
+
+        ChildSnapshot snapshot = mSnapshots.get(child);
+        if (snapshot == null || snapshot.bitmap.getWidth() != width || snapshot.bitmap.getHeight() != height) {
+            if (snapshot != null)
+                snapshot.bitmap.recycle();
+            snapshot = new ChildSnapshot(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888));
+            mSnapshots.put(child, snapshot);
+        }
+
+        if (snapshot.stale) {
+            snapshot.stale = false;
+            snapshot.bitmap.eraseColor(Color.TRANSPARENT);
+            mSnapshotCanvas.setBitmap(snapshot.bitmap);
+            int bitmapSaveCount = mSnapshotCanvas.save();
+            mSnapshotCanvas.translate(-child.getScrollX(), -child.getScrollY());
+            child.draw(mSnapshotCanvas);
+            mSnapshotCanvas.restoreToCount(bitmapSaveCount);
+            mSnapshotCanvas.setBitmap(null);
+        }
+
+        snapshot.matrix.setTranslate(child.getLeft(), child.getTop());
+        snapshot.shader.setLocalMatrix(snapshot.matrix);
+
+        // outside of the child the shader would repeat the edge pixels of the bitmap
+        int saveCount = canvas.save();
+        canvas.clipRect(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+        canvas.drawPath(regionPath(region), snapshot.paint);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /*
+     * Software drawing, and hardware drawing before Oreo, report the invalidation of a child or
+     * of its descendants here, with the position of the child in location. The snapshots aren't
+     * drawn from the display lists of the children, so the view is invalidated itself.
+     */
+    @Override
+    public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+        for (Map.Entry<View, ChildSnapshot> entry : mSnapshots.entrySet()) {
+            View child = entry.getKey();
+            if (child.getLeft() == location[0] && child.getTop() == location[1])
+                markStale(entry.getValue());
+        }
+        return super.invalidateChildInParent(location, dirty);
+    }
+
+    /*
+     * Hardware drawing from Oreo on reports the invalidations here instead
+     */
+    @TargetApi(Build.VERSION_CODES.O)
+    @Override
+    public void onDescendantInvalidated(View child, View target) {
+        ChildSnapshot snapshot = mSnapshots.get(child);
+        if (snapshot != null)
+            markStale(snapshot);
+        super.onDescendantInvalidated(child, target);
+    }
+
+    private void markStale(ChildSnapshot snapshot) {
+        if (snapshot.stale)
+            return;
+        snapshot.stale = true;
+        invalidate();
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+
+        mUnclippedChildren.remove(child);
+        ChildSnapshot snapshot = mSnapshots.remove(child);
+        if (snapshot != null)
+            snapshot.bitmap.recycle();
+
+        if (mOutlineProvider != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP)
+            updateOutline(child, false);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseSnapshots();
+    }
+
+    private void releaseSnapshots() {
+        for (ChildSnapshot snapshot : mSnapshots.values()) {
+            snapshot.bitmap.recycle();
+        }
+        mSnapshots.clear();
+    }
+
+    private void drawBorders(Canvas canvas) {
+        if (mBorderMode == BORDER_MODE_EDGES) {
+            canvas.drawLines(mDiagram.getEdges(), 0, 4 * mDiagram.getEdgeCount(), mEdgePaint);
+            return;
+        }
+
+        for (int i = 0; i < mDiagram.getRegionCount(); i++) {
+            canvas.drawPath(regionPath(i), p);
+        }
+    }
+
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
         if (mRegionClickListener != null) {
 
-            if (event.getAction() == MotionEvent.ACTION_UP) {
-                for (int i = 0; i < mRegions.size(); i++) {
-                    VoronoiRegion region = mRegions.get(i);
-                    if (region.contains(event.getX(), event.getY())) {
-                        mRegionClickListener.onClick(this, i);
-                        return false;
-                    }
+            if (event.getAction() == MotionEvent.ACTION_UP && mDiagram != null) {
+                int region = mDiagram.findRegion(event.getX(), event.getY());
+                if (region >= 0) {
+                    mRegionClickListener.onClick(this, region);
+                    return false;
                 }
             }
         }
@@ -398,6 +1070,19 @@ public class VoronoiView extends ViewGroup {
             return;
         }
 
+        mIncrementalVoronoi = null;
+        mPartialLayout = false;
+        mChangedChildren.clear();
+
+        // no children, the borders of the last diagram go away and a pending one is superseded
+        if (mRegionsCount == 0) {
+            mGeneration.incrementAndGet();
+            mGenerating = false;
+            mDiagram = new CompactDiagram();
+            invalidateBorders();
+            return;
+        }
+
         double[] arrayX = new double[mRegionsCount];
         double[] arrayY = new double[mRegionsCount];
 
@@ -411,14 +1096,167 @@ public class VoronoiView extends ViewGroup {
             case GENERATION_TYPE_CUSTOM:
                 generateCustomPoints(arrayX, arrayY);
                 break;
+            case GENERATION_TYPE_RELAXED:
+                generateRandomPoints(arrayX, arrayY);
+                break;
+            case GENERATION_TYPE_POISSON:
+                generatePoissonPoints(arrayX, arrayY);
+                break;
             default:
                 generateRandomPoints(arrayX, arrayY);
                 break;
         }
 
+        GenerationTask task = new GenerationTask(mGeneration.incrementAndGet(), arrayX, arrayY);
+
+        if (task.key != null) {
+            CompactDiagram cached = mDiagram != null ? mDiagram : new CompactDiagram();
+            if (DiagramCache.getDefault().get(task.key, cached)) {
+                mGenerating = false;
+                mDiagram = cached;
+                invalidateBorders();
+                return;
+            }
+        }
+
+        mGenerating = mAsyncGeneration;
+        if (mAsyncGeneration) {
+            getGenerationExecutor().execute(task);
+            return;
+        }
+
+        if (mDiagram == null)
+            mDiagram = new CompactDiagram();
+        task.generate(mVoronoi, mGenerationType == GENERATION_TYPE_RELAXED ? getRelaxation() : null, mDiagram);
+        invalidateBorders();
+    }
+
+    /*
+     * Shows a diagram generated in the background, unless a newer one was requested meanwhile
+     */
+    private void publishDiagram(int generation, CompactDiagram diagram) {
+        if (generation != mGeneration.get())
+            return;
+        mGenerating = false;
+
+        // children were added or removed in the meantime
+        countRegions();
+        if (diagram.getRegionCount() != mRegionsCount) {
+            generateDiagram();
+            return;
+        }
+
+        mDiagram = diagram;
+        mIncrementalVoronoi = null;
+        invalidateBorders();
+        requestLayout();
+    }
+
+    private LloydRelaxation getRelaxation() {
+        if (mRelaxation == null)
+            mRelaxation = new LloydRelaxation(mVoronoi);
+        return mRelaxation;
+    }
+
+    /*
+     * The default cache gives back memory when the system asks for it
+     */
+    private static synchronized void registerCacheTrim(Context context) {
+        if (sCacheTrimRegistered)
+            return;
+        sCacheTrimRegistered = true;
+
+        context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                DiagramCache cache = DiagramCache.getDefault();
+                if (level >= TRIM_MEMORY_BACKGROUND)
+                    cache.clear();
+                else if (level >= TRIM_MEMORY_RUNNING_LOW)
+                    cache.trimToSize(cache.getSize() / 2);
+            }
+
+            @Override
+            public void onLowMemory() {
+                DiagramCache.getDefault().clear();
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getGenerationExecutor() {
+        if (sGenerationExecutor == null) {
+            sGenerationExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "VoronoiView generation");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sGenerationExecutor;
+    }
+
+    private Path regionPath(int region) {
+        Path path = mPath;
+        path.rewind();
+
+        float[] points = mDiagram.getPoints();
+        int from = mDiagram.getPointOffset(region);
+        int to = mDiagram.getPointOffset(region + 1);
+        for (int i = from; i < to; i++) {
+            if (i == from) {
+                path.moveTo(points[2 * i], points[2 * i + 1]);
+                continue;
+            }
+            path.lineTo(points[2 * i], points[2 * i + 1]);
+        }
+
+        path.close();
+        return path;
+    }
+
+    /*
+     * The incremental diagram is built from the current regions on the first edit, so its site
+     * indices are the region indices.
+     */
+    private IncrementalVoronoi getIncrementalVoronoi() {
+        if (mIncrementalVoronoi == null) {
+            double[] arrayX = new double[mDiagram.getRegionCount()];
+            double[] arrayY = new double[mDiagram.getRegionCount()];
+            for (int i = 0; i < mDiagram.getRegionCount(); i++) {
+                arrayX[i] = mDiagram.getSiteX(i);
+                arrayY[i] = mDiagram.getSiteY(i);
+            }
+
+            mIncrementalVoronoi = new IncrementalVoronoi(0, mViewWidth, 0, mViewHeight);
+            mIncrementalVoronoi.setBoundary(mBoundaryX, mBoundaryY);
+            mIncrementalVoronoi.setSites(arrayX, arrayY);
+        }
+        return mIncrementalVoronoi;
+    }
+
+    private void updateRegions(int[] changed) {
+        for (int index : changed) {
+            mIncrementalVoronoi.getRegion(index, mDiagram);
+            mChangedChildren.add(getChildAt(index));
+        }
 
-        mVoronoi.generateVoronoi(arrayX, arrayY, 0, mViewWidth, 0, mViewHeight);
-        mRegions = mVoronoi.getRegions();
+        mPartialLayout = true;
+        invalidateBorders();
+        requestLayout();
+    }
+
+    /*
+     * Drops the recorded borders, they are recorded again on the next draw
+     */
+    private void invalidateBorders() {
+        mBorderPicture = null;
+        invalidate();
     }
 
 
@@ -430,34 +1268,102 @@ public class VoronoiView extends ViewGroup {
      */
 
     private void generateRandomPoints(double[] arrayX, double[] arrayY) {
-        Random rand = new Random();
+        Random rand = newRandom();
+        int minDistance = mDistanceBetweenSites * mDistanceBetweenSites;
 
         int i = 0;
+        int attempts = 0;
         while (i < mRegionsCount) {
             int x1 = rand.nextInt(mViewWidth + 1);
             int y1 = rand.nextInt(mViewHeight + 1);
 
-            boolean good = true;
-            for (int j = 0; j < arrayX.length; j++) {
-                double x2 = arrayX[j];
-                double y2 = arrayY[j];
-
-                double dist = Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
-                if (dist < mDistanceBetweenSites)
-                    good = false;
+            // only the filled slots, and give up on the distance when the view is too crowded
+            boolean good = attempts >= RANDOM_SITE_ATTEMPTS || isInsideBoundary(x1, y1);
+            for (int j = 0; j < i && good && attempts < RANDOM_SITE_ATTEMPTS; j++) {
+                double dx = x1 - arrayX[j];
+                double dy = y1 - arrayY[j];
+                good = dx * dx + dy * dy >= minDistance;
             }
 
             if (good) {
                 arrayX[i] = x1;
                 arrayY[i] = y1;
                 i++;
+                attempts = 0;
+            } else {
+                attempts++;
             }
         }
     }
 
+    private void generatePoissonPoints(double[] arrayX, double[] arrayY) {
+        Random rand = newRandom();
+        PoissonDiskSampler sampler = new PoissonDiskSampler(mViewWidth, mViewHeight, mDistanceBetweenSites, rand);
+        sampler.setBoundary(mBoundaryX, mBoundaryY);
+        int count = sampler.sample(arrayX, arrayY, mRegionsCount);
+
+        if (count < mRegionsCount) {
+            Log.w("VoronoiView", "Only " + count + " of " + mRegionsCount + " sites fit at the minimum distance");
+
+            // the rest can't keep the distance, but stays inside the boundary unless it hardly fits the view
+            for (int i = count; i < mRegionsCount; i++) {
+                int attempts = 0;
+                do {
+                    arrayX[i] = rand.nextInt(mViewWidth + 1);
+                    arrayY[i] = rand.nextInt(mViewHeight + 1);
+                } while (!sampler.isInside(arrayX[i], arrayY[i]) && ++attempts < RANDOM_SITE_ATTEMPTS);
+            }
+        }
+    }
 
-    private void generateOrderedPoints(double[] arrayX, double[] arrayY) {
+
+    private Random newRandom() {
+        return mSeeded ? new Random(mSeed) : new Random();
+    }
+
+
+    private VoronoiPoint generateRandomSite() {
         Random rand = new Random();
+        int x1 = 0;
+        int y1 = 0;
+
+        // give up on the distance after a few attempts, a crowded view has no room left
+        for (int attempt = 0; attempt < 30; attempt++) {
+            x1 = rand.nextInt(mViewWidth + 1);
+            y1 = rand.nextInt(mViewHeight + 1);
+
+            boolean good = isInsideBoundary(x1, y1);
+            for (int j = 0; j < mDiagram.getRegionCount() && good; j++) {
+                double dx = x1 - mDiagram.getSiteX(j);
+                double dy = y1 - mDiagram.getSiteY(j);
+                good = dx * dx + dy * dy >= mDistanceBetweenSites * mDistanceBetweenSites;
+            }
+            if (good)
+                break;
+        }
+
+        return new VoronoiPoint(x1, y1);
+    }
+
+
+    private boolean isInsideBoundary(double x, double y) {
+        if (mBoundaryX == null)
+            return true;
+
+        // on the same side of every edge
+        boolean negative = false, positive = false;
+        for (int i = 0, j = mBoundaryX.length - 1; i < mBoundaryX.length; j = i++) {
+            double cross = (mBoundaryX[i] - mBoundaryX[j]) * (y - mBoundaryY[j])
+                    - (mBoundaryY[i] - mBoundaryY[j]) * (x - mBoundaryX[j]);
+            negative |= cross < 0;
+            positive |= cross > 0;
+        }
+        return !(negative && positive);
+    }
+
+
+    private void generateOrderedPoints(double[] arrayX, double[] arrayY) {
+        Random rand = newRandom();
 
         // Make a number of columns
         int diff_w = Math.max(mViewWidth / mViewHeight, 1);
@@ -521,4 +1427,149 @@ public class VoronoiView extends ViewGroup {
     }
 
 
+    /*
+     * The bitmap of a child and the paint which fills its region with it
+     */
+    private static class ChildSnapshot {
+        final Bitmap bitmap;
+        final BitmapShader shader;
+        final Paint paint;
+        final Matrix matrix = new Matrix();
+        // the child was invalidated after the bitmap was drawn
+        boolean stale = true;
+
+        ChildSnapshot(Bitmap bitmap) {
+            this.bitmap = bitmap;
+            this.shader = new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP);
+            this.paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            this.paint.setShader(shader);
+        }
+    }
+
+
+    /*
+     * The outline of the region of a child, in the coordinates of the child
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private class RegionOutlineProvider extends ViewOutlineProvider {
+        private final Path path = new Path();
+        private float[] points = new float[32];
+        private float[] hull = new float[34];
+
+        @Override
+        public void getOutline(View view, Outline outline) {
+            Integer index = (Integer) view.getTag();
+            if (index == null || mDiagram == null || index >= mDiagram.getRegionCount()) {
+                outline.setEmpty();
+                return;
+            }
+
+            int count = mDiagram.getPointCount(index);
+            if (points.length < 2 * count) {
+                points = new float[2 * count];
+                hull = new float[2 * count + 2];
+            }
+            for (int i = 0; i < count; i++) {
+                points[2 * i] = mDiagram.getPointX(index, i) - view.getLeft();
+                points[2 * i + 1] = mDiagram.getPointY(index, i) - view.getTop();
+            }
+
+            // the hull drops repeated and collinear vertices, a path which isn't strictly
+            // convex is rejected by the outline
+            int hullCount = GrahamScan.getConvexHull(points, count, hull);
+            if (hullCount < 3) {
+                outline.setEmpty();
+                return;
+            }
+
+            path.rewind();
+            path.moveTo(hull[0], hull[1]);
+            for (int i = 1; i < hullCount; i++) {
+                path.lineTo(hull[2 * i], hull[2 * i + 1]);
+            }
+            path.close();
+            outline.setConvexPath(path);
+        }
+    }
+
+
+    /*
+     * A diagram generation with the settings of the view at the time it was requested, so the
+     * background thread doesn't read the fields of the view.
+     */
+    private class GenerationTask implements Runnable {
+        private final int generation;
+        private final double[] arrayX, arrayY;
+        private final int width, height;
+        private final double[] boundaryX, boundaryY;
+        private final boolean relaxed;
+        private final int relaxIterations;
+        private final float relaxThreshold;
+        private final long relaxTimeBudget;
+        // null if the diagram isn't cached
+        final DiagramCache.Key key;
+
+        GenerationTask(int generation, double[] arrayX, double[] arrayY) {
+            this.generation = generation;
+            this.arrayX = arrayX;
+            this.arrayY = arrayY;
+            this.width = mViewWidth;
+            this.height = mViewHeight;
+            this.boundaryX = mBoundaryX;
+            this.boundaryY = mBoundaryY;
+            this.relaxed = mGenerationType == GENERATION_TYPE_RELAXED;
+            this.relaxIterations = mRelaxIterations;
+            this.relaxThreshold = mRelaxThreshold;
+            this.relaxTimeBudget = mRelaxTimeBudget;
+
+            // the sites before the relaxation, it moves them
+            boolean cached = mCacheEnabled && (mSeeded || mGenerationType == GENERATION_TYPE_CUSTOM);
+            this.key = !cached ? null : new DiagramCache.Key(arrayX, arrayY, 0, width, 0, height,
+                    boundaryX, boundaryY, mSeeded ? mSeed : 0, mGenerationType,
+                    relaxed ? relaxIterations : 0, relaxed ? relaxThreshold : 0, relaxed ? relaxTimeBudget : 0);
+        }
+
+        /*
+         * Generates the diagram on the engine and writes its regions, the relaxation moves the
+         * sites first
+         */
+        void generate(Voronoi voronoi, LloydRelaxation relaxation, CompactDiagram diagram) {
+            voronoi.setBoundary(boundaryX, boundaryY);
+            if (relaxation != null) {
+                relaxation.setMaxIterations(relaxIterations);
+                relaxation.setConvergenceThreshold(relaxThreshold);
+                relaxation.setTimeBudget(relaxTimeBudget);
+                relaxation.relax(arrayX, arrayY, 0, width, 0, height);
+            } else {
+                voronoi.generateVoronoi(arrayX, arrayY, 0, width, 0, height);
+            }
+            voronoi.getRegions(diagram);
+
+            if (key != null)
+                DiagramCache.getDefault().put(key, diagram);
+        }
+
+        @Override
+        public void run() {
+            // superseded before it started
+            if (generation != mGeneration.get())
+                return;
+
+            if (mAsyncVoronoi == null)
+                mAsyncVoronoi = new Voronoi();
+            if (relaxed && mAsyncRelaxation == null)
+                mAsyncRelaxation = new LloydRelaxation(mAsyncVoronoi);
+
+            // a new diagram every time, the shown one is never written
+            final CompactDiagram diagram = new CompactDiagram();
+            generate(mAsyncVoronoi, relaxed ? mAsyncRelaxation : null, diagram);
+
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    publishDiagram(generation, diagram);
+                }
+            });
+        }
+    }
 }